@@ -1,20 +1,37 @@
 package com.coffeeshop.controller;
 
 import com.coffeeshop.dto.BaristaDTO;
+import com.coffeeshop.dto.LatencyDTO;
 import com.coffeeshop.dto.MetricsDTO;
 import com.coffeeshop.dto.OrderDTO;
+import com.coffeeshop.dto.OrderFilter;
 import com.coffeeshop.model.DrinkType;
 import com.coffeeshop.model.LoyaltyStatus;
 import com.coffeeshop.model.Order;
+import com.coffeeshop.model.OrderStatus;
+import com.coffeeshop.scheduling.AdmissionPolicy;
+import com.coffeeshop.service.AdmissionControl;
 import com.coffeeshop.service.MetricsService;
+import com.coffeeshop.service.OrderIntake;
 import com.coffeeshop.service.OrderService;
-import com.coffeeshop.service.SimulationService;
+import com.coffeeshop.service.QueueEventBroadcaster;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 
 @RestController
@@ -24,16 +41,21 @@ public class OrderController {
 
     private final OrderService orderService;
     private final MetricsService metricsService;
-    private final SimulationService simulationService;
+    private final OrderIntake orderIntake;
+    private final AdmissionControl admissionControl;
+    private final QueueEventBroadcaster queueEventBroadcaster;
+    private final ObjectMapper objectMapper;
+
+    private static final int MAX_ORDERS_PER_REQUEST = 10_000;
 
     @GetMapping("/queue")
-    public ResponseEntity<List<OrderDTO>> getQueue() {
-        return ResponseEntity.ok(orderService.getQueue());
+    public ResponseEntity<List<OrderDTO>> getQueue(@RequestParam(defaultValue = "1") long storeId) {
+        return ResponseEntity.ok(orderService.getQueue(storeId));
     }
 
     @GetMapping("/baristas")
-    public ResponseEntity<List<BaristaDTO>> getBaristas() {
-        return ResponseEntity.ok(orderService.getBaristas());
+    public ResponseEntity<List<BaristaDTO>> getBaristas(@RequestParam(defaultValue = "1") long storeId) {
+        return ResponseEntity.ok(orderService.getBaristas(storeId));
     }
 
     @GetMapping("/metrics")
@@ -42,22 +64,85 @@ public class OrderController {
     }
 
 
+    @GetMapping("/metrics/latency")
+    public ResponseEntity<List<LatencyDTO>> getLatencyHistory(@RequestParam(defaultValue = "60") long minutes) {
+        Instant now = Instant.now();
+        return ResponseEntity.ok(metricsService.latencyBetween(now.minus(Duration.ofMinutes(minutes)), now));
+    }
+
+
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestParam(defaultValue = "1") long storeId) {
+        return queueEventBroadcaster.subscribe(storeId);
+    }
+
+
+    /**
+     * Order history oldest first, streamed as a JSON array. To get the next page, pass the last
+     * order's {@code arrivalTime} and {@code id} back as {@code after} and {@code afterId}.
+     */
     @GetMapping("/orders/all")
-    public ResponseEntity<List<OrderDTO>> getAllOrders() {
-        return ResponseEntity.ok(orderService.getAllOrders());
+    public ResponseEntity<StreamingResponseBody> getAllOrders(
+            @RequestParam(required = false) Set<OrderStatus> status,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) Instant after,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "1000") int limit) {
+        OrderFilter filter = new OrderFilter(status, from, to);
+        int pageSize = Math.max(1, Math.min(limit, MAX_ORDERS_PER_REQUEST));
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                orderService.forEachOrder(filter, after, afterId, pageSize, dto -> {
+                    try {
+                        objectMapper.writeValue(json, dto);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
 
+    /**
+     * Takes an order for a store with baristas (404 otherwise) unless admission control predicts it
+     * would wait past the SLA, in which case it answers 503 with the prediction and, if one would
+     * take it, another store to order from. An order predicted to wait past the quote threshold is
+     * taken with that wait quoted. A taken order answers 202: it joins the queue once the intake
+     * has written it. Admission control is off unless {@code coffeeshop.admission.enabled} is set.
+     */
     @PostMapping("/orders")
-    public ResponseEntity<OrderDTO> createOrder(@RequestBody Map<String, String> body) {
+    public ResponseEntity<?> createOrder(@RequestBody Map<String, String> body) {
         String customerName = body.getOrDefault("customerName", "Demo Customer");
         String drink = body.getOrDefault("drinkType", "LATTE");
         String loyalty = body.getOrDefault("loyaltyStatus", "REGULAR");
+        long storeId;
+        try {
+            storeId = Long.parseLong(body.getOrDefault("storeId", String.valueOf(Order.DEFAULT_STORE_ID)));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!orderService.hasBaristas(storeId)) return ResponseEntity.notFound().build();
 
         DrinkType drinkType = DrinkType.fromString(drink);
         LoyaltyStatus loyaltyStatus = "GOLD".equalsIgnoreCase(loyalty) ? LoyaltyStatus.GOLD : LoyaltyStatus.REGULAR;
 
-        Order order = simulationService.createOrder(customerName, drinkType, loyaltyStatus);
-        return ResponseEntity.ok(orderService.toOrderDTO(order, java.time.Instant.now()));
+        AdmissionControl.Admission admission = admissionControl.admit(storeId, Instant.now());
+        if (admission.decision() == AdmissionPolicy.Decision.SHED) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(admissionControl.toDTO(admission));
+        }
+        Order order = orderIntake.accept(storeId, customerName, drinkType, loyaltyStatus);
+        if (order == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        OrderDTO dto = orderService.toOrderUpdateDTO(order, order.getArrivalTime());
+        if (admission.decision() == AdmissionPolicy.Decision.QUOTE) {
+            dto.setQuotedWaitMinutes((long) Math.ceil(admission.predictedWaitMinutes()));
+        }
+        return ResponseEntity.accepted().body(dto);
     }
 }
@@ -2,10 +2,13 @@ package com.coffeeshop.controller;
 
 import com.coffeeshop.dto.SimulationResultDTO;
 import com.coffeeshop.service.TestSimulationService;
+import com.coffeeshop.simulation.SimulationEngine;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 
 @RestController
 @RequestMapping("/simulate")
@@ -15,6 +18,8 @@ public class SimulationTestController {
 
     private final TestSimulationService testSimulationService;
 
+    private static final int MAX_SWEEP_RUNS = 500;
+
 
     @PostMapping("/test")
     public ResponseEntity<SimulationResultDTO> startTestSimulation() {
@@ -22,4 +27,15 @@ public class SimulationTestController {
         SimulationResultDTO dto = SimulationResultDTO.from(result);
         return ResponseEntity.ok(dto);
     }
+
+
+    @GetMapping("/admission-sweep")
+    public ResponseEntity<List<SimulationEngine.AdmissionSweepPoint>> sweepAdmission(
+            @RequestParam(defaultValue = "0.6") double from,
+            @RequestParam(defaultValue = "2.4") double to,
+            @RequestParam(defaultValue = "0.2") double step,
+            @RequestParam(defaultValue = "50") int runs) {
+        if (step <= 0 || to < from || runs < 1) return ResponseEntity.badRequest().build();
+        return ResponseEntity.ok(testSimulationService.sweepAdmission(from, to, step, Math.min(runs, MAX_SWEEP_RUNS)));
+    }
 }
@@ -0,0 +1,19 @@
+package com.coffeeshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdmissionDTO {
+    private String decision;
+    /** {@code null} when nothing has started lately to predict from. */
+    private Long predictedWaitMinutes;
+    private double slaMinutes;
+    private boolean overloaded;
+    private Long divertToStoreId;
+}
@@ -0,0 +1,21 @@
+package com.coffeeshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencyDTO {
+    private String series;
+    private String dimension;
+    private long count;
+    private double p50Minutes;
+    private double p90Minutes;
+    private double p99Minutes;
+    private double p999Minutes;
+    private double maxMinutes;
+}
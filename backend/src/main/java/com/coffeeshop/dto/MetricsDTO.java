@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.Instant;
+import java.util.List;
 
 @Data
 @Builder
@@ -20,4 +21,6 @@ public class MetricsDTO {
     private int totalOrdersCompleted;
     private int queueSize;
     private Instant recordedAt;
+    private List<MetricsWindowDTO> windows;
+    private List<LatencyDTO> latency;
 }
@@ -0,0 +1,19 @@
+package com.coffeeshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricsWindowDTO {
+    private String window;
+    private int ordersCompleted;
+    private double avgWaitTimeMinutes;
+    private double maxWaitTimeMinutes;
+    private double timeoutRate;
+    private int fairnessViolations;
+}
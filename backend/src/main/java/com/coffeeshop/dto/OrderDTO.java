@@ -30,4 +30,6 @@ public class OrderDTO {
     private int prepTimeMinutes;
     private long waitTimeMinutes;
     private long estimatedWaitMinutes;
+    /** Wait quoted when the order was accepted, if it was predicted to wait past the quote threshold. */
+    private Long quotedWaitMinutes;
 }
@@ -0,0 +1,27 @@
+package com.coffeeshop.dto;
+
+import com.coffeeshop.model.OrderStatus;
+
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Set;
+
+
+/**
+ * Which orders {@code /orders/all} returns: any of {@code statuses}, arriving in [{@code from}, {@code to}).
+ */
+public record OrderFilter(Set<OrderStatus> statuses, Instant from, Instant to) {
+
+    public static final Instant EARLIEST = Instant.EPOCH;
+    public static final Instant LATEST = Instant.parse("9999-12-31T00:00:00Z");
+
+    public OrderFilter {
+        statuses = statuses == null || statuses.isEmpty() ? EnumSet.allOf(OrderStatus.class) : EnumSet.copyOf(statuses);
+        if (from == null) from = EARLIEST;
+        if (to == null) to = LATEST;
+    }
+
+    public boolean matches(OrderStatus status, Instant arrivalTime) {
+        return statuses.contains(status) && !arrivalTime.isBefore(from) && arrivalTime.isBefore(to);
+    }
+}
@@ -0,0 +1,20 @@
+package com.coffeeshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueSnapshotDTO {
+    private List<OrderDTO> queue;
+    private List<BaristaDTO> baristas;
+    private MetricsDTO metrics;
+    private Instant now;
+}
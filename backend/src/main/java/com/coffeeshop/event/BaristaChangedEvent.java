@@ -0,0 +1,6 @@
+package com.coffeeshop.event;
+
+import com.coffeeshop.model.Barista;
+
+
+public record BaristaChangedEvent(Barista barista) {}
@@ -0,0 +1,6 @@
+package com.coffeeshop.event;
+
+import com.coffeeshop.model.Order;
+
+
+public record OrderAcceptedEvent(Order order) {}
@@ -0,0 +1,15 @@
+package com.coffeeshop.event;
+
+import com.coffeeshop.model.Order;
+
+
+public record OrderChangedEvent(Order order, Change change) {
+
+    public enum Change {
+        ENQUEUED,
+        RESCORED,
+        ASSIGNED,
+        PENALIZED,
+        COMPLETED
+    }
+}
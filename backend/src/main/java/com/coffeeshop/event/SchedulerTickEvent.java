@@ -0,0 +1,6 @@
+package com.coffeeshop.event;
+
+import java.time.Instant;
+
+
+public record SchedulerTickEvent(long storeId, Instant now) {}
@@ -2,13 +2,16 @@ package com.coffeeshop.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
 
 
 @Entity
-@Table(name = "baristas")
+@Table(name = "baristas",
+    uniqueConstraints = @UniqueConstraint(name = "uk_store_barista_name", columnNames = {"storeId", "name"}),
+    indexes = @Index(name = "idx_barista_store", columnList = "storeId"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,9 +23,20 @@ public class Barista {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
+    @ColumnDefault("1")
+    @Builder.Default
+    private long storeId = Order.DEFAULT_STORE_ID;
+
+    @Column(nullable = false)
     private String name;
 
+    /** Drinks the barista can have in flight at once, one of them hands-on at a time. */
+    @Column(nullable = false)
+    @ColumnDefault("1")
+    @Builder.Default
+    private int slots = 1;
+
     @Builder.Default
     private double currentWorkloadMinutes = 0;
 
@@ -32,8 +46,4 @@ public class Barista {
     @OneToMany(mappedBy = "barista", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @Builder.Default
     private List<Assignment> assignments = new ArrayList<>();
-
-    public boolean isAvailable() {
-        return currentWorkloadMinutes <= 0;
-    }
 }
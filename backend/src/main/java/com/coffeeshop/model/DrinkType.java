@@ -4,24 +4,40 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 
+/**
+ * Each drink's prep time, of which the first {@code handsOnMinutes} need the barista's hands
+ * (grinding, tamping, pouring, steaming) and the rest is machine time (the shot pulling) the
+ * barista can spend starting another drink.
+ */
 public enum DrinkType {
-    COLD_BREW(1),
-    ESPRESSO(2),
-    AMERICANO(2),
-    CAPPUCCINO(4),
-    LATTE(4),
-    MOCHA(6);
+    COLD_BREW(1, 1),
+    ESPRESSO(2, 1),
+    AMERICANO(2, 1),
+    CAPPUCCINO(4, 2),
+    LATTE(4, 2),
+    MOCHA(6, 3);
 
     private final int prepTimeMinutes;
+    private final int handsOnMinutes;
 
-    DrinkType(int prepTimeMinutes) {
+    DrinkType(int prepTimeMinutes, int handsOnMinutes) {
         this.prepTimeMinutes = prepTimeMinutes;
+        this.handsOnMinutes = handsOnMinutes;
     }
 
     public int getPrepTimeMinutes() {
         return prepTimeMinutes;
     }
 
+    public int getHandsOnMinutes() {
+        return handsOnMinutes;
+    }
+
+    /** Hands-on share of the prep time, for scaling a barista's own or a batch's prep time. */
+    public double handsOnFraction() {
+        return handsOnMinutes / (double) prepTimeMinutes;
+    }
+
 
     public int getComplexityScore() {
         return Math.max(0, 100 - (prepTimeMinutes - 1) * 20);
@@ -0,0 +1,20 @@
+package com.coffeeshop.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+
+@Entity
+@Table(name = "id_blocks")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdBlock {
+
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private long nextValue;
+}
@@ -29,4 +29,8 @@ public class Metrics {
     private int fairnessViolations;
     private int totalOrdersProcessed;
     private int totalOrdersCompleted;
+
+    @Lob
+    @Column(length = 16_777_215)
+    private byte[] latencyHistograms;
 }
@@ -1,7 +1,10 @@
 package com.coffeeshop.model;
 
+import com.coffeeshop.repository.OrderIdAssigner;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.springframework.data.domain.Persistable;
 
 import java.time.Instant;
 
@@ -10,19 +13,27 @@ import java.time.Instant;
 @Table(name = "orders", indexes = {
     @Index(name = "idx_arrival_time", columnList = "arrivalTime"),
     @Index(name = "idx_status", columnList = "status"),
-    @Index(name = "idx_barista_id", columnList = "barista_id")
+    @Index(name = "idx_barista_id", columnList = "barista_id"),
+    @Index(name = "idx_store_status_arrival", columnList = "storeId, status, arrivalTime")
 })
+@EntityListeners(OrderIdAssigner.class)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class Order {
+public class Order implements Persistable<Long> {
+
+    public static final long DEFAULT_STORE_ID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(nullable = false)
+    @ColumnDefault("1")
+    @Builder.Default
+    private long storeId = DEFAULT_STORE_ID;
+
     @Column(nullable = false)
     private String customerName;
 
@@ -54,6 +65,12 @@ public class Order {
 
     private String assignmentReason;
 
+    /** Orders of this drink the barista is making together with this one, itself included. */
+    @Column(nullable = false)
+    @ColumnDefault("1")
+    @Builder.Default
+    private int batchSize = 1;
+
     @Builder.Default
     private int laterArrivalsServedFirst = 0;
 
@@ -63,11 +80,35 @@ public class Order {
     @Builder.Default
     private boolean alertSent = false;
 
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean persisted;
+
+    /**
+     * Ids are assigned before the insert, so Spring Data cannot tell a new order by its null id;
+     * without this every save of a fresh order would merge, and select first.
+     */
+    @Override
+    public boolean isNew() {
+        return id == null || !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+
     public int getPrepTimeMinutes() {
         return drinkType.getPrepTimeMinutes();
     }
 
     public long getWaitTimeMinutes(Instant now) {
+        return waitTimeMinutes(arrivalTime, assignmentTime, now);
+    }
+
+    public static long waitTimeMinutes(Instant arrivalTime, Instant assignmentTime, Instant now) {
         if (arrivalTime == null || now == null) return 0;
         if (assignmentTime != null) {
             return (assignmentTime.toEpochMilli() - arrivalTime.toEpochMilli()) / 60_000;
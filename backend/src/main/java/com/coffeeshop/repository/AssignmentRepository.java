@@ -3,16 +3,19 @@ package com.coffeeshop.repository;
 import com.coffeeshop.model.Assignment;
 import com.coffeeshop.model.Barista;
 import com.coffeeshop.model.Order;
-import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
+public interface AssignmentRepository extends EntityRepository<Assignment> {
 
     Optional<Assignment> findByOrder(Order order);
 
     Optional<Assignment> findByOrderId(Long orderId);
 
+    List<Assignment> findByOrderIdIn(Collection<Long> orderIds);
+
     boolean existsByOrder(Order order);
 
     long countByBarista(Barista barista);
@@ -0,0 +1,76 @@
+package com.coffeeshop.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Barista names used to be unique across all stores. {@code ddl-auto=update} adds the per-store
+ * constraint but never drops the old one, so on a schema from before stores existed, seeding
+ * "Barista 1" for a second store fails. On startup this drops any unique index on
+ * {@code baristas(name)} alone.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BaristaNameIndexMigration {
+
+    private static final String TABLE = "baristas";
+    private static final String COLUMN = "name";
+
+    private static final String NAME_ONLY_UNIQUE_CONSTRAINTS =
+        "select tc.constraint_name from information_schema.table_constraints tc "
+            + "join information_schema.key_column_usage k on k.constraint_schema = tc.constraint_schema "
+            + "and k.constraint_name = tc.constraint_name and k.table_name = tc.table_name "
+            + "where lower(tc.table_name) = '" + TABLE + "' and tc.constraint_type = 'UNIQUE' "
+            + "and tc.table_schema in (?, ?) "
+            + "group by tc.constraint_name having count(*) = 1 and lower(max(k.column_name)) = '" + COLUMN + "'";
+
+    private final DataSource dataSource;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void dropGlobalNameIndex() {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData meta = connection.getMetaData();
+            String quote = meta.getIdentifierQuoteString().trim();
+            boolean mysql = meta.getDatabaseProductName().toLowerCase().contains("mysql");
+            for (String index : nameOnlyUniqueIndexes(connection)) {
+                String quoted = quote + index + quote;
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(mysql
+                        ? "alter table " + TABLE + " drop index " + quoted
+                        : "alter table " + TABLE + " drop constraint " + quoted);
+                }
+                log.info("Dropped unique index {} on {}({}); names are now unique per store", index, TABLE, COLUMN);
+            }
+        } catch (SQLException e) {
+            log.warn("Could not check {} for a unique index on {} alone", TABLE, COLUMN, e);
+        }
+    }
+
+    /** Unique constraints on the column alone; in MySQL each is an index of the same name. */
+    private static List<String> nameOnlyUniqueIndexes(Connection connection) throws SQLException {
+        List<String> indexes = new ArrayList<>();
+        try (PreparedStatement query = connection.prepareStatement(NAME_ONLY_UNIQUE_CONSTRAINTS)) {
+            query.setString(1, connection.getCatalog());
+            query.setString(2, connection.getSchema());
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) indexes.add(rs.getString(1));
+            }
+        }
+        return indexes;
+    }
+}
@@ -1,13 +1,20 @@
 package com.coffeeshop.repository;
 
 import com.coffeeshop.model.Barista;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
-public interface BaristaRepository extends JpaRepository<Barista, Long> {
+public interface BaristaRepository extends EntityRepository<Barista> {
 
     List<Barista> findAllByOrderByIdAsc();
 
+    List<Barista> findByStoreIdOrderByIdAsc(long storeId);
+
+    @Query("select distinct b.storeId from Barista b")
+    List<Long> findStoreIds();
+
+    boolean existsByStoreId(long storeId);
+
     Barista findByName(String name);
 }
@@ -0,0 +1,15 @@
+package com.coffeeshop.repository;
+
+import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.data.repository.ListPagingAndSortingRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+/**
+ * The CRUD, paging and batch delete the services use, without the rest of {@code JpaRepository},
+ * so the in-memory repositories behind the simulations can implement all of it.
+ */
+@NoRepositoryBean
+public interface EntityRepository<T> extends ListCrudRepository<T, Long>, ListPagingAndSortingRepository<T, Long> {
+
+    void deleteAllInBatch();
+}
@@ -0,0 +1,77 @@
+package com.coffeeshop.repository;
+
+import com.coffeeshop.model.IdBlock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Reserves order ids in blocks of {@code coffeeshop.intake.id-block-size} from the
+ * {@code id_blocks} table, one short transaction per block, and hands them out from memory with a
+ * single atomic increment. The first block starts after the highest existing order id.
+ */
+@Component
+@Slf4j
+public class HiLoOrderIdAllocator implements OrderIdAllocator {
+
+    static final String ORDERS = "orders";
+
+    private final IdBlockRepository idBlockRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate requiresNew;
+    private final int blockSize;
+
+    private volatile Block block = new Block(0, 0);
+
+    public HiLoOrderIdAllocator(IdBlockRepository idBlockRepository, OrderRepository orderRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${coffeeshop.intake.id-block-size:100}") int blockSize) {
+        this.idBlockRepository = idBlockRepository;
+        this.orderRepository = orderRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            Block b = block;
+            long id = b.next.getAndIncrement();
+            if (id < b.end) return id;
+            refill(b);
+        }
+    }
+
+    private synchronized void refill(Block exhausted) {
+        if (block != exhausted) return;
+        long start = requiresNew.execute(status -> reserve());
+        block = new Block(start, start + blockSize);
+        log.debug("Reserved order ids {}..{}", start, start + blockSize - 1);
+    }
+
+    private long reserve() {
+        IdBlock row = idBlockRepository.findForUpdate(ORDERS)
+            .orElseGet(() -> new IdBlock(ORDERS, orderRepository.findMaxId() + 1));
+        long start = row.getNextValue();
+        row.setNextValue(start + blockSize);
+        idBlockRepository.save(row);
+        return start;
+    }
+
+    private static final class Block {
+        final AtomicLong next;
+        final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.coffeeshop.repository;
+
+import com.coffeeshop.model.IdBlock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+public interface IdBlockRepository extends JpaRepository<IdBlock, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from IdBlock b where b.name = :name")
+    Optional<IdBlock> findForUpdate(String name);
+}
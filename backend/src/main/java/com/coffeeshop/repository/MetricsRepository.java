@@ -1,12 +1,11 @@
 package com.coffeeshop.repository;
 
 import com.coffeeshop.model.Metrics;
-import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.time.Instant;
 import java.util.List;
 
-public interface MetricsRepository extends JpaRepository<Metrics, Long> {
+public interface MetricsRepository extends EntityRepository<Metrics> {
 
     List<Metrics> findTop10ByOrderByRecordedAtDesc();
 
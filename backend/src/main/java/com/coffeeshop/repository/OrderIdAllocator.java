@@ -0,0 +1,9 @@
+package com.coffeeshop.repository;
+
+/**
+ * Hands out order ids before the row exists, so an order can be acknowledged without an insert.
+ */
+public interface OrderIdAllocator {
+
+    long nextId();
+}
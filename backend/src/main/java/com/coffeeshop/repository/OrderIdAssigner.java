@@ -0,0 +1,25 @@
+package com.coffeeshop.repository;
+
+import com.coffeeshop.model.Order;
+import jakarta.persistence.PrePersist;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Entity listener that gives an order saved without an id one from the {@link OrderIdAllocator}.
+ * The allocator is looked up on first use, since it needs the entity manager this listener is
+ * registered with.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderIdAssigner {
+
+    private final ObjectProvider<OrderIdAllocator> orderIdAllocator;
+
+    @PrePersist
+    public void assignId(Order order) {
+        if (order.getId() == null) order.setId(orderIdAllocator.getObject().nextId());
+    }
+}
@@ -0,0 +1,18 @@
+package com.coffeeshop.repository;
+
+import com.coffeeshop.model.DrinkType;
+import com.coffeeshop.model.LoyaltyStatus;
+import com.coffeeshop.model.OrderStatus;
+
+import java.time.Instant;
+
+
+/**
+ * One row of the order history, read with the barista's name in the same query so listing orders
+ * never touches the lazy barista association.
+ */
+public record OrderListRow(long id, long storeId, String customerName, DrinkType drinkType,
+                           LoyaltyStatus loyaltyStatus, OrderStatus status, Instant arrivalTime,
+                           Instant assignmentTime, Instant completionTime, Long baristaId, String baristaName,
+                           Double priorityScore, String assignmentReason) {
+}
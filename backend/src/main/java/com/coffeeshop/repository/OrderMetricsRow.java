@@ -0,0 +1,24 @@
+package com.coffeeshop.repository;
+
+import com.coffeeshop.model.DrinkType;
+import com.coffeeshop.model.OrderStatus;
+
+import java.time.Instant;
+
+
+public interface OrderMetricsRow {
+
+    OrderStatus getStatus();
+
+    Instant getArrivalTime();
+
+    Instant getAssignmentTime();
+
+    Instant getCompletionTime();
+
+    int getLaterArrivalsServedFirst();
+
+    DrinkType getDrinkType();
+
+    Long getBaristaId();
+}
@@ -2,20 +2,49 @@ package com.coffeeshop.repository;
 
 import com.coffeeshop.model.Order;
 import com.coffeeshop.model.OrderStatus;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends EntityRepository<Order> {
 
     List<Order> findByStatusOrderByArrivalTimeAsc(OrderStatus status);
 
     List<Order> findByStatus(OrderStatus status);
 
+    List<Order> findByStoreIdAndStatusOrderByArrivalTimeAsc(long storeId, OrderStatus status);
+
+    List<Order> findByStoreIdAndStatus(long storeId, OrderStatus status);
+
+    @Query("select coalesce(max(o.id), 0) from Order o")
+    long findMaxId();
+
+    @Query("select distinct o.storeId from Order o where o.status in :statuses")
+    List<Long> findStoreIdsByStatusIn(Collection<OrderStatus> statuses);
+
     List<Order> findByArrivalTimeBetween(Instant start, Instant end);
 
     long countByStatus(OrderStatus status);
 
     long countByArrivalTimeBetween(Instant start, Instant end);
+
+    @Query("select o.status as status, o.arrivalTime as arrivalTime, o.assignmentTime as assignmentTime, "
+        + "o.completionTime as completionTime, o.laterArrivalsServedFirst as laterArrivalsServedFirst, "
+        + "o.drinkType as drinkType, b.id as baristaId from Order o left join o.barista b")
+    List<OrderMetricsRow> findAllMetricsRows();
+
+    /**
+     * Orders after the (arrivalTime, id) cursor, in that order; a page ends where the next begins.
+     */
+    @Query("select new com.coffeeshop.repository.OrderListRow(o.id, o.storeId, o.customerName, o.drinkType, "
+        + "o.loyaltyStatus, o.status, o.arrivalTime, o.assignmentTime, o.completionTime, b.id, b.name, "
+        + "o.priorityScore, o.assignmentReason) from Order o left join o.barista b "
+        + "where o.status in :statuses and o.arrivalTime >= :from and o.arrivalTime < :to "
+        + "and (o.arrivalTime > :afterArrival or (o.arrivalTime = :afterArrival and o.id > :afterId)) "
+        + "order by o.arrivalTime, o.id")
+    List<OrderListRow> findPageAfter(Collection<OrderStatus> statuses, Instant from, Instant to,
+                                     Instant afterArrival, long afterId, Limit limit);
 }
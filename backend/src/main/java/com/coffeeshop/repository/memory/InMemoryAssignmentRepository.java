@@ -0,0 +1,62 @@
+package com.coffeeshop.repository.memory;
+
+import com.coffeeshop.model.Assignment;
+import com.coffeeshop.model.Barista;
+import com.coffeeshop.model.Order;
+import com.coffeeshop.repository.AssignmentRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class InMemoryAssignmentRepository extends InMemoryRepository<Assignment> implements AssignmentRepository {
+
+    private final Map<Long, Assignment> byOrderId = new HashMap<>();
+
+    public InMemoryAssignmentRepository() {
+        super(Assignment::getId, Assignment::setId);
+    }
+
+    @Override
+    protected void onSave(Assignment a) {
+        if (a.getOrder() != null) byOrderId.put(a.getOrder().getId(), a);
+    }
+
+    @Override
+    protected void onDelete(Assignment a) {
+        if (a.getOrder() != null) byOrderId.remove(a.getOrder().getId(), a);
+    }
+
+    @Override
+    public Optional<Assignment> findByOrder(Order order) {
+        return findByOrderId(order.getId());
+    }
+
+    @Override
+    public Optional<Assignment> findByOrderId(Long orderId) {
+        return Optional.ofNullable(byOrderId.get(orderId));
+    }
+
+    @Override
+    public List<Assignment> findByOrderIdIn(Collection<Long> orderIds) {
+        List<Assignment> found = new ArrayList<>();
+        for (Long id : orderIds) {
+            Assignment a = byOrderId.get(id);
+            if (a != null) found.add(a);
+        }
+        return found;
+    }
+
+    @Override
+    public boolean existsByOrder(Order order) {
+        return byOrderId.containsKey(order.getId());
+    }
+
+    @Override
+    public long countByBarista(Barista barista) {
+        return stream().filter(a -> a.getBarista() == barista).count();
+    }
+}
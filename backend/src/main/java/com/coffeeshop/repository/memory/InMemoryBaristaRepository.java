@@ -0,0 +1,39 @@
+package com.coffeeshop.repository.memory;
+
+import com.coffeeshop.model.Barista;
+import com.coffeeshop.repository.BaristaRepository;
+
+import java.util.Comparator;
+import java.util.List;
+
+public class InMemoryBaristaRepository extends InMemoryRepository<Barista> implements BaristaRepository {
+
+    public InMemoryBaristaRepository() {
+        super(Barista::getId, Barista::setId);
+    }
+
+    @Override
+    public List<Barista> findAllByOrderByIdAsc() {
+        return stream().sorted(Comparator.comparing(Barista::getId)).toList();
+    }
+
+    @Override
+    public List<Barista> findByStoreIdOrderByIdAsc(long storeId) {
+        return stream().filter(b -> b.getStoreId() == storeId).sorted(Comparator.comparing(Barista::getId)).toList();
+    }
+
+    @Override
+    public List<Long> findStoreIds() {
+        return stream().map(Barista::getStoreId).distinct().toList();
+    }
+
+    @Override
+    public boolean existsByStoreId(long storeId) {
+        return stream().anyMatch(b -> b.getStoreId() == storeId);
+    }
+
+    @Override
+    public Barista findByName(String name) {
+        return stream().filter(b -> name.equals(b.getName())).findFirst().orElse(null);
+    }
+}
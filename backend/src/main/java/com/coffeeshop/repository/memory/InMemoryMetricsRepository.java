@@ -0,0 +1,29 @@
+package com.coffeeshop.repository.memory;
+
+import com.coffeeshop.model.Metrics;
+import com.coffeeshop.repository.MetricsRepository;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+public class InMemoryMetricsRepository extends InMemoryRepository<Metrics> implements MetricsRepository {
+
+    public InMemoryMetricsRepository() {
+        super(Metrics::getId, Metrics::setId);
+    }
+
+    @Override
+    public List<Metrics> findTop10ByOrderByRecordedAtDesc() {
+        return stream()
+            .sorted(Comparator.comparing(Metrics::getRecordedAt, Comparator.nullsLast(Comparator.reverseOrder())))
+            .limit(10)
+            .toList();
+    }
+
+    @Override
+    public List<Metrics> findByRecordedAtBetween(Instant start, Instant end) {
+        return filter(m -> m.getRecordedAt() != null
+            && !m.getRecordedAt().isBefore(start) && !m.getRecordedAt().isAfter(end));
+    }
+}
@@ -0,0 +1,120 @@
+package com.coffeeshop.repository.memory;
+
+import com.coffeeshop.model.DrinkType;
+import com.coffeeshop.model.Order;
+import com.coffeeshop.model.OrderStatus;
+import com.coffeeshop.repository.OrderIdAllocator;
+import com.coffeeshop.repository.OrderListRow;
+import com.coffeeshop.repository.OrderMetricsRow;
+import com.coffeeshop.repository.OrderRepository;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+public class InMemoryOrderRepository extends InMemoryRepository<Order> implements OrderRepository, OrderIdAllocator {
+
+    public InMemoryOrderRepository() {
+        super(Order::getId, Order::setId);
+    }
+
+    @Override
+    public List<Order> findByStatusOrderByArrivalTimeAsc(OrderStatus status) {
+        return stream()
+            .filter(o -> o.getStatus() == status)
+            .sorted(Comparator.comparing(Order::getArrivalTime))
+            .toList();
+    }
+
+    @Override
+    public List<Order> findByStatus(OrderStatus status) {
+        return filter(o -> o.getStatus() == status);
+    }
+
+    @Override
+    public long nextId() {
+        return reserveId();
+    }
+
+    @Override
+    public long findMaxId() {
+        return stream().mapToLong(Order::getId).max().orElse(0);
+    }
+
+    @Override
+    public List<Order> findByStoreIdAndStatusOrderByArrivalTimeAsc(long storeId, OrderStatus status) {
+        return stream()
+            .filter(o -> o.getStoreId() == storeId && o.getStatus() == status)
+            .sorted(Comparator.comparing(Order::getArrivalTime))
+            .toList();
+    }
+
+    @Override
+    public List<Order> findByStoreIdAndStatus(long storeId, OrderStatus status) {
+        return filter(o -> o.getStoreId() == storeId && o.getStatus() == status);
+    }
+
+    @Override
+    public List<Long> findStoreIdsByStatusIn(Collection<OrderStatus> statuses) {
+        return stream().filter(o -> statuses.contains(o.getStatus())).map(Order::getStoreId).distinct().toList();
+    }
+
+    @Override
+    public List<Order> findByArrivalTimeBetween(Instant start, Instant end) {
+        return filter(o -> isBetween(o.getArrivalTime(), start, end));
+    }
+
+    @Override
+    public long countByStatus(OrderStatus status) {
+        return stream().filter(o -> o.getStatus() == status).count();
+    }
+
+    @Override
+    public long countByArrivalTimeBetween(Instant start, Instant end) {
+        return stream().filter(o -> isBetween(o.getArrivalTime(), start, end)).count();
+    }
+
+    @Override
+    public List<OrderMetricsRow> findAllMetricsRows() {
+        return stream()
+            .<OrderMetricsRow>map(o -> new MetricsRow(o.getStatus(), o.getArrivalTime(), o.getAssignmentTime(),
+                o.getCompletionTime(), o.getLaterArrivalsServedFirst(), o.getDrinkType(),
+                o.getBarista() != null ? o.getBarista().getId() : null))
+            .toList();
+    }
+
+    @Override
+    public List<OrderListRow> findPageAfter(Collection<OrderStatus> statuses, Instant from, Instant to,
+                                            Instant afterArrival, long afterId, Limit limit) {
+        return stream()
+            .filter(o -> statuses.contains(o.getStatus()) && !o.getArrivalTime().isBefore(from) && o.getArrivalTime().isBefore(to))
+            .filter(o -> o.getArrivalTime().isAfter(afterArrival)
+                || (o.getArrivalTime().equals(afterArrival) && o.getId() > afterId))
+            .sorted(Comparator.comparing(Order::getArrivalTime).thenComparing(Order::getId))
+            .limit(limit.isLimited() ? limit.max() : Long.MAX_VALUE)
+            .map(o -> new OrderListRow(o.getId(), o.getStoreId(), o.getCustomerName(), o.getDrinkType(),
+                o.getLoyaltyStatus(), o.getStatus(), o.getArrivalTime(), o.getAssignmentTime(), o.getCompletionTime(),
+                o.getBarista() != null ? o.getBarista().getId() : null,
+                o.getBarista() != null ? o.getBarista().getName() : null,
+                o.getPriorityScore(), o.getAssignmentReason()))
+            .toList();
+    }
+
+    private static boolean isBetween(Instant t, Instant start, Instant end) {
+        return t != null && !t.isBefore(start) && !t.isAfter(end);
+    }
+
+    private record MetricsRow(OrderStatus status, Instant arrivalTime, Instant assignmentTime, Instant completionTime,
+                              int laterArrivalsServedFirst, DrinkType drinkType, Long baristaId)
+        implements OrderMetricsRow {
+        @Override public OrderStatus getStatus() { return status; }
+        @Override public Instant getArrivalTime() { return arrivalTime; }
+        @Override public Instant getAssignmentTime() { return assignmentTime; }
+        @Override public Instant getCompletionTime() { return completionTime; }
+        @Override public int getLaterArrivalsServedFirst() { return laterArrivalsServedFirst; }
+        @Override public DrinkType getDrinkType() { return drinkType; }
+        @Override public Long getBaristaId() { return baristaId; }
+    }
+}
@@ -0,0 +1,160 @@
+package com.coffeeshop.repository.memory;
+
+import com.coffeeshop.repository.EntityRepository;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+
+public abstract class InMemoryRepository<T> implements EntityRepository<T> {
+
+    private final Map<Long, T> store = new LinkedHashMap<>();
+    private final Function<T, Long> idGetter;
+    private final BiConsumer<T, Long> idSetter;
+    private long nextId = 1;
+
+    protected InMemoryRepository(Function<T, Long> idGetter, BiConsumer<T, Long> idSetter) {
+        this.idGetter = idGetter;
+        this.idSetter = idSetter;
+    }
+
+    protected void onSave(T entity) {
+    }
+
+    protected void onDelete(T entity) {
+    }
+
+    protected long reserveId() {
+        return nextId++;
+    }
+
+    protected Stream<T> stream() {
+        return store.values().stream();
+    }
+
+    protected List<T> filter(Predicate<T> predicate) {
+        return stream().filter(predicate).toList();
+    }
+
+    @Override
+    public <S extends T> S save(S entity) {
+        Long id = idGetter.apply(entity);
+        if (id == null) {
+            id = nextId++;
+            idSetter.accept(entity, id);
+        } else {
+            nextId = Math.max(nextId, id + 1);
+        }
+        T previous = store.put(id, entity);
+        if (previous != null && previous != entity) onDelete(previous);
+        onSave(entity);
+        return entity;
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        for (S e : entities) saved.add(save(e));
+        return saved;
+    }
+
+    @Override
+    public Optional<T> findById(Long id) {
+        return Optional.ofNullable(store.get(id));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return store.containsKey(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        return new ArrayList<>(store.values());
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<Long> ids) {
+        List<T> found = new ArrayList<>();
+        for (Long id : ids) {
+            T e = store.get(id);
+            if (e != null) found.add(e);
+        }
+        return found;
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        List<T> all = findAll();
+        if (sort.isSorted()) all.sort(comparator(sort));
+        return all;
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        List<T> all = findAll(pageable.getSort());
+        if (pageable.isUnpaged()) return new PageImpl<>(all);
+        int from = (int) Math.min(pageable.getOffset(), all.size());
+        int to = Math.min(from + pageable.getPageSize(), all.size());
+        return new PageImpl<>(all.subList(from, to), pageable, all.size());
+    }
+
+    @Override
+    public long count() {
+        return store.size();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        T removed = store.remove(id);
+        if (removed != null) onDelete(removed);
+    }
+
+    @Override
+    public void delete(T entity) {
+        Long id = idGetter.apply(entity);
+        if (id != null) deleteById(id);
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        for (Long id : ids) deleteById(id);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        for (T e : entities) delete(e);
+    }
+
+    @Override
+    public void deleteAll() {
+        for (T e : findAll()) delete(e);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Comparator<T> comparator(Sort sort) {
+        Comparator<T> result = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<Comparable> values = order.isAscending()
+                ? Comparator.nullsLast(Comparator.<Comparable>naturalOrder())
+                : Comparator.nullsLast(Comparator.<Comparable>reverseOrder());
+            Comparator<T> byProperty = Comparator.comparing(
+                e -> (Comparable) new BeanWrapperImpl(e).getPropertyValue(order.getProperty()), values);
+            result = result.thenComparing(byProperty);
+        }
+        return result;
+    }
+}
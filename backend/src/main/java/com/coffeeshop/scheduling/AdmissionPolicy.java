@@ -0,0 +1,169 @@
+package com.coffeeshop.scheduling;
+
+import com.coffeeshop.model.DrinkType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+
+/**
+ * Decides whether a store takes a new order from the wait it is predicted to have. By Little's
+ * law a backlog of L orders that starts at λ orders a minute clears in L/λ minutes, so with L the
+ * orders ahead that no idle barista will pick up and λ the rate orders have recently been
+ * started, the new order can expect to wait L/λ. When orders arrive faster than
+ * {@code coffeeshop.admission.max-utilization} times that start rate the store is overloaded: the
+ * backlog is growing, and as the scheduler lets later, higher-priority orders go first, the
+ * prediction is stretched by the ratio of arrivals to starts.
+ *
+ * <p>An order predicted to wait up to {@code coffeeshop.admission.quote-minutes} is accepted, one
+ * predicted to wait up to the {@code coffeeshop.max-wait-minutes} SLA is accepted with its wait
+ * quoted, and anything longer is shed.
+ */
+@Component
+public class AdmissionPolicy {
+
+    private static final double MINUTE_MILLIS = 60_000;
+    private static final double NOMINAL_SERVICE_MINUTES = Arrays.stream(DrinkType.values())
+        .mapToInt(DrinkType::getPrepTimeMinutes).average().orElse(1);
+
+    public enum Decision {
+        ACCEPT,
+        QUOTE,
+        SHED
+    }
+
+    private final boolean enabled;
+    private final double quoteMinutes;
+    private final double slaMinutes;
+    private final double maxUtilization;
+    private final double windowMillis;
+
+    public AdmissionPolicy(
+            @Value("${coffeeshop.admission.enabled:false}") boolean enabled,
+            @Value("${coffeeshop.admission.quote-minutes:5}") double quoteMinutes,
+            @Value("${coffeeshop.max-wait-minutes:10}") double slaMinutes,
+            @Value("${coffeeshop.admission.max-utilization:1.0}") double maxUtilization,
+            @Value("${coffeeshop.admission.rate-window-minutes:10}") double rateWindowMinutes) {
+        this.enabled = enabled;
+        this.quoteMinutes = quoteMinutes;
+        this.slaMinutes = slaMinutes;
+        this.maxUtilization = maxUtilization;
+        this.windowMillis = rateWindowMinutes * MINUTE_MILLIS;
+    }
+
+    public static AdmissionPolicy disabled() {
+        return new AdmissionPolicy(false, 5, 10, 1.0, 10);
+    }
+
+    public static AdmissionPolicy defaults() {
+        return new AdmissionPolicy(true, 5, 10, 1.0, 10);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double slaMinutes() {
+        return slaMinutes;
+    }
+
+    public Rates newRates(long sinceMillis) {
+        return new Rates(windowMillis, sinceMillis);
+    }
+
+    /**
+     * @param backlog  orders ahead of the new one, itself included, less the baristas free to start one
+     * @param baristas baristas on shift
+     */
+    public double predictedWaitMinutes(int backlog, int baristas, Rates rates, long nowMillis) {
+        if (backlog <= 0) return 0;
+        double drainRate = rates.drainPerMinute(baristas, nowMillis);
+        if (drainRate <= 0) return Double.POSITIVE_INFINITY;
+        double utilization = rates.arrivalsPerMinute(nowMillis) / drainRate;
+        double wait = backlog / drainRate;
+        return utilization > maxUtilization ? wait * utilization : wait;
+    }
+
+    public boolean isOverloaded(int backlog, int baristas, Rates rates, long nowMillis) {
+        return backlog > 0 && rates.arrivalsPerMinute(nowMillis) > maxUtilization * rates.drainPerMinute(baristas, nowMillis);
+    }
+
+    public Decision decide(double predictedWaitMinutes) {
+        if (!enabled || predictedWaitMinutes <= quoteMinutes) return Decision.ACCEPT;
+        return predictedWaitMinutes <= slaMinutes ? Decision.QUOTE : Decision.SHED;
+    }
+
+
+    /**
+     * Arrival and start rates of one store, as exponentially weighted counts over the rate window.
+     * Until a full window has passed the counts are divided by the time actually observed, so the
+     * first orders of the day do not read as a stalled store. A quiet store starts orders only as
+     * fast as they arrive, so the backlog drains at the start rate or at what the baristas could
+     * manage at the recent service time per order, whichever is faster. Before any order has
+     * started, the service time is taken to be the average drink's nominal prep time.
+     */
+    public static final class Rates {
+
+        private final double windowMillis;
+        private final long sinceMillis;
+        private final Count arrivals = new Count();
+        private final Count starts = new Count();
+        private final Count serviceMinutes = new Count();
+
+        Rates(double windowMillis, long sinceMillis) {
+            this.windowMillis = windowMillis;
+            this.sinceMillis = sinceMillis;
+        }
+
+        public synchronized void onArrival(long atMillis) {
+            arrivals.add(atMillis, 1, windowMillis);
+        }
+
+        /** @param minutes how long the barista takes over the {@code orders} together */
+        public synchronized void onStarts(long atMillis, int orders, double minutes) {
+            starts.add(atMillis, orders, windowMillis);
+            serviceMinutes.add(atMillis, minutes, windowMillis);
+        }
+
+        public synchronized double arrivalsPerMinute(long nowMillis) {
+            return perMinute(arrivals, nowMillis);
+        }
+
+        public synchronized double startsPerMinute(long nowMillis) {
+            return perMinute(starts, nowMillis);
+        }
+
+        public synchronized double drainPerMinute(int baristas, long nowMillis) {
+            double service = serviceMinutes.at(nowMillis, windowMillis);
+            double minutesPerOrder = service > 0 ? service / starts.at(nowMillis, windowMillis) : NOMINAL_SERVICE_MINUTES;
+            return Math.max(perMinute(starts, nowMillis), baristas / minutesPerOrder);
+        }
+
+        private double perMinute(Count count, long nowMillis) {
+            double observed = Math.max(MINUTE_MILLIS, nowMillis - sinceMillis);
+            double effectiveWindow = windowMillis * -Math.expm1(-observed / windowMillis);
+            return count.at(nowMillis, windowMillis) * MINUTE_MILLIS / effectiveWindow;
+        }
+    }
+
+    private static final class Count {
+
+        private double weight;
+        private long atMillis = Long.MIN_VALUE;
+
+        void add(long at, double n, double windowMillis) {
+            if (at >= atMillis) {
+                weight = at(at, windowMillis) + n;
+                atMillis = at;
+            } else {
+                weight += n * Math.exp((at - atMillis) / windowMillis);
+            }
+        }
+
+        double at(long now, double windowMillis) {
+            if (weight == 0 || now <= atMillis) return weight;
+            return weight * Math.exp((atMillis - now) / windowMillis);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.coffeeshop.scheduling;
+
+import java.util.Arrays;
+
+
+/**
+ * Minimum-cost assignment (Hungarian method with potentials), O(r²·c) for r rows and c ≥ r
+ * columns. Sized for one tick's worth of free baristas against a bounded list of candidates.
+ */
+public final class AssignmentSolver {
+
+    public static final int UNASSIGNED = -1;
+
+    private AssignmentSolver() {}
+
+    /**
+     * @return for each row, the column it is matched to, or {@link #UNASSIGNED} when there are
+     * more rows than columns and the row is left out
+     */
+    public static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        int cols = rows == 0 ? 0 : cost[0].length;
+        if (rows <= cols) return solveWide(cost, rows, cols);
+
+        double[][] transposed = new double[cols][rows];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) transposed[j][i] = cost[i][j];
+        }
+        int[] rowByCol = solveWide(transposed, cols, rows);
+        int[] colByRow = new int[rows];
+        Arrays.fill(colByRow, UNASSIGNED);
+        for (int j = 0; j < cols; j++) colByRow[rowByCol[j]] = j;
+        return colByRow;
+    }
+
+    private static int[] solveWide(double[][] cost, int rows, int cols) {
+        double[] u = new double[rows + 1];
+        double[] v = new double[cols + 1];
+        int[] rowOfCol = new int[cols + 1];
+        int[] way = new int[cols + 1];
+        double[] minv = new double[cols + 1];
+        boolean[] used = new boolean[cols + 1];
+
+        for (int i = 1; i <= rows; i++) {
+            rowOfCol[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = rowOfCol[j0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                for (int j = 1; j <= cols; j++) {
+                    if (used[j]) continue;
+                    double reduced = cost[i0 - 1][j - 1] - u[i0] - v[j];
+                    if (reduced < minv[j]) {
+                        minv[j] = reduced;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= cols; j++) {
+                    if (used[j]) {
+                        u[rowOfCol[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (rowOfCol[j0] != 0);
+            do {
+                int j1 = way[j0];
+                rowOfCol[j0] = rowOfCol[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] colByRow = new int[rows];
+        for (int j = 1; j <= cols; j++) {
+            if (rowOfCol[j] != 0) colByRow[rowOfCol[j] - 1] = j - 1;
+        }
+        return colByRow;
+    }
+}
@@ -0,0 +1,79 @@
+package com.coffeeshop.scheduling;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+
+/**
+ * Lets a barista make several queued orders of the same drink as one job. A batch of n drinks
+ * takes the single-drink time plus {@code coffeeshop.batching.marginal-cost} of it for each extra
+ * drink, holds at most {@code coffeeshop.batching.max-size} drinks, and only grows while the
+ * time it adds to the order that started it stays within
+ * {@code coffeeshop.batching.max-delay-minutes}. Mates join oldest first, and a batch never
+ * waits for more orders to arrive. A max size of 1 turns batching off.
+ */
+@Component
+public class DrinkBatching {
+
+    private static final int[] NO_MATES = new int[0];
+
+    private final int maxSize;
+    private final double marginalCost;
+    private final double maxDelayMinutes;
+
+    public DrinkBatching(
+            @Value("${coffeeshop.batching.max-size:1}") int maxSize,
+            @Value("${coffeeshop.batching.marginal-cost:0.4}") double marginalCost,
+            @Value("${coffeeshop.batching.max-delay-minutes:4}") double maxDelayMinutes) {
+        this.maxSize = Math.max(1, maxSize);
+        this.marginalCost = marginalCost;
+        this.maxDelayMinutes = maxDelayMinutes;
+    }
+
+    public static DrinkBatching disabled() {
+        return new DrinkBatching(1, 0.4, 4);
+    }
+
+    public static DrinkBatching defaults() {
+        return new DrinkBatching(4, 0.4, 4);
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 1;
+    }
+
+    public double batchMinutes(double singleMinutes, int size) {
+        return singleMinutes * (1 + (size - 1) * marginalCost);
+    }
+
+    /**
+     * Queued orders to make alongside {@code row}, oldest first.
+     *
+     * @param singleMinutes how long the chosen barista takes over one of these drinks
+     * @param reserved      rows already picked for other baristas this tick
+     */
+    public int[] batchWith(OrderTable orders, QueueView queue, int row, double singleMinutes, int[] reserved) {
+        int size = 1;
+        while (size < maxSize && batchMinutes(singleMinutes, size + 1) - singleMinutes <= maxDelayMinutes) size++;
+        if (size == 1) return NO_MATES;
+
+        int[] mates = new int[size - 1];
+        int n = 0;
+        RowList sameDrink = queue.rowsOfDrink(orders.drink(row));
+        for (int i = 0; i < sameDrink.size(); i++) {
+            int mate = sameDrink.row(i);
+            if (n == mates.length) break;
+            if (mate != row && !contains(reserved, mate)) mates[n++] = mate;
+        }
+        return n == mates.length ? mates : Arrays.copyOf(mates, n);
+    }
+
+    private static boolean contains(int[] rows, int row) {
+        for (int r : rows) {
+            if (r == row) return true;
+        }
+        return false;
+    }
+}
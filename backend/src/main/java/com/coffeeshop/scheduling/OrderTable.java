@@ -0,0 +1,148 @@
+package com.coffeeshop.scheduling;
+
+import java.util.Arrays;
+
+
+public final class OrderTable {
+
+    public static final long UNASSIGNED = Long.MIN_VALUE;
+
+    private long[] ids;
+    private long[] arrivalMillis;
+    private long[] assignedMillis;
+    private int[] drinks;
+    private int[] prepMinutes;
+    private int[] complexityScores;
+    private int[] loyaltyBoosts;
+    private int[] laterArrivalsServedFirst;
+    private boolean[] fairnessPenaltyApplied;
+    private double[] priorities;
+
+    private int[] freeRows = new int[16];
+    private int freeCount = 0;
+    private int highWater = 0;
+    private int size = 0;
+
+    public OrderTable() {
+        this(64);
+    }
+
+    public OrderTable(int capacity) {
+        int n = Math.max(1, capacity);
+        ids = new long[n];
+        arrivalMillis = new long[n];
+        assignedMillis = new long[n];
+        drinks = new int[n];
+        prepMinutes = new int[n];
+        complexityScores = new int[n];
+        loyaltyBoosts = new int[n];
+        laterArrivalsServedFirst = new int[n];
+        fairnessPenaltyApplied = new boolean[n];
+        priorities = new double[n];
+    }
+
+    public int add(long id, long arrivalMillis, int drink, int prepMinutes, int complexityScore, int loyaltyBoost) {
+        int row = freeCount > 0 ? freeRows[--freeCount] : nextRow();
+        this.ids[row] = id;
+        this.arrivalMillis[row] = arrivalMillis;
+        this.assignedMillis[row] = UNASSIGNED;
+        this.drinks[row] = drink;
+        this.prepMinutes[row] = prepMinutes;
+        this.complexityScores[row] = complexityScore;
+        this.loyaltyBoosts[row] = loyaltyBoost;
+        this.laterArrivalsServedFirst[row] = 0;
+        this.fairnessPenaltyApplied[row] = false;
+        this.priorities[row] = Double.NaN;
+        size++;
+        return row;
+    }
+
+    public void remove(int row) {
+        if (freeCount == freeRows.length) freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        freeRows[freeCount++] = row;
+        size--;
+    }
+
+    public void clear() {
+        freeCount = 0;
+        highWater = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long id(int row) {
+        return ids[row];
+    }
+
+    public long arrivalMillis(int row) {
+        return arrivalMillis[row];
+    }
+
+    public long assignedMillis(int row) {
+        return assignedMillis[row];
+    }
+
+    public void setAssignedMillis(int row, long millis) {
+        assignedMillis[row] = millis;
+    }
+
+    /** The {@link com.coffeeshop.model.DrinkType} ordinal. */
+    public int drink(int row) {
+        return drinks[row];
+    }
+
+    public int prepMinutes(int row) {
+        return prepMinutes[row];
+    }
+
+    public int complexityScore(int row) {
+        return complexityScores[row];
+    }
+
+    public int loyaltyBoost(int row) {
+        return loyaltyBoosts[row];
+    }
+
+    public int laterArrivalsServedFirst(int row) {
+        return laterArrivalsServedFirst[row];
+    }
+
+    public boolean fairnessPenaltyApplied(int row) {
+        return fairnessPenaltyApplied[row];
+    }
+
+    public void setFairness(int row, int laterArrivalsServedFirst, boolean penaltyApplied) {
+        this.laterArrivalsServedFirst[row] = laterArrivalsServedFirst;
+        this.fairnessPenaltyApplied[row] = penaltyApplied;
+    }
+
+    public double priority(int row) {
+        return priorities[row];
+    }
+
+    public void setPriority(int row, double priority) {
+        priorities[row] = priority;
+    }
+
+    private int nextRow() {
+        if (highWater == ids.length) grow();
+        return highWater++;
+    }
+
+    private void grow() {
+        int n = ids.length * 2;
+        ids = Arrays.copyOf(ids, n);
+        arrivalMillis = Arrays.copyOf(arrivalMillis, n);
+        assignedMillis = Arrays.copyOf(assignedMillis, n);
+        drinks = Arrays.copyOf(drinks, n);
+        prepMinutes = Arrays.copyOf(prepMinutes, n);
+        complexityScores = Arrays.copyOf(complexityScores, n);
+        loyaltyBoosts = Arrays.copyOf(loyaltyBoosts, n);
+        laterArrivalsServedFirst = Arrays.copyOf(laterArrivalsServedFirst, n);
+        fairnessPenaltyApplied = Arrays.copyOf(fairnessPenaltyApplied, n);
+        priorities = Arrays.copyOf(priorities, n);
+    }
+}
@@ -0,0 +1,90 @@
+package com.coffeeshop.scheduling;
+
+import com.coffeeshop.model.DrinkType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * How long each barista actually takes over each drink, as an exponentially weighted moving
+ * average of the prep times they have recorded, so recent orders count most and memory stays at
+ * one slot per barista and drink. A barista uses the drink's nominal time until they have
+ * {@code coffeeshop.prep-time.min-samples} recorded orders of that drink. Estimates within
+ * {@code coffeeshop.prep-time.tolerance-minutes} of each other count as the same.
+ */
+@Component
+public class PrepTimeModel {
+
+    private static final int DRINKS = DrinkType.values().length;
+
+    private final double alpha;
+    private final int minSamples;
+    private final double toleranceMinutes;
+    private final ConcurrentMap<Long, Estimates> byBarista = new ConcurrentHashMap<>();
+
+    public PrepTimeModel(
+            @Value("${coffeeshop.prep-time.alpha:0.2}") double alpha,
+            @Value("${coffeeshop.prep-time.min-samples:3}") int minSamples,
+            @Value("${coffeeshop.prep-time.tolerance-minutes:0.25}") double toleranceMinutes) {
+        this.alpha = alpha;
+        this.minSamples = minSamples;
+        this.toleranceMinutes = toleranceMinutes;
+    }
+
+    public static PrepTimeModel defaults() {
+        return new PrepTimeModel(0.2, 3, 0.25);
+    }
+
+    public void record(long baristaId, DrinkType drinkType, double minutes) {
+        if (!(minutes > 0)) return;
+        byBarista.computeIfAbsent(baristaId, id -> new Estimates()).record(drinkType, minutes, alpha);
+    }
+
+    public double estimateMinutes(long baristaId, DrinkType drinkType) {
+        Estimates estimates = byBarista.get(baristaId);
+        return estimates == null ? drinkType.getPrepTimeMinutes() : estimates.estimate(drinkType, minSamples);
+    }
+
+    /**
+     * Whether the given baristas are currently expected to take the same time over every drink,
+     * as they are before any of them has enough history.
+     */
+    public boolean sameForAll(long[] baristaIds) {
+        for (DrinkType drinkType : DrinkType.values()) {
+            double fastest = Double.POSITIVE_INFINITY;
+            double slowest = Double.NEGATIVE_INFINITY;
+            for (long baristaId : baristaIds) {
+                double minutes = estimateMinutes(baristaId, drinkType);
+                fastest = Math.min(fastest, minutes);
+                slowest = Math.max(slowest, minutes);
+            }
+            if (slowest - fastest > toleranceMinutes) return false;
+        }
+        return true;
+    }
+
+
+    private static final class Estimates {
+
+        private final double[] minutes = new double[DRINKS];
+        private final int[] samples = new int[DRINKS];
+
+        Estimates() {
+            for (DrinkType d : DrinkType.values()) minutes[d.ordinal()] = d.getPrepTimeMinutes();
+        }
+
+        synchronized void record(DrinkType drinkType, double observed, double alpha) {
+            int d = drinkType.ordinal();
+            minutes[d] += alpha * (observed - minutes[d]);
+            if (samples[d] < Integer.MAX_VALUE) samples[d]++;
+        }
+
+        synchronized double estimate(DrinkType drinkType, int minSamples) {
+            int d = drinkType.ordinal();
+            return samples[d] < minSamples ? drinkType.getPrepTimeMinutes() : minutes[d];
+        }
+    }
+}
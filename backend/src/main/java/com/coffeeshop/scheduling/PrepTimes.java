@@ -0,0 +1,30 @@
+package com.coffeeshop.scheduling;
+
+
+/**
+ * Expected prep minutes for a batch of free baristas, who are identified by their position in
+ * the batch, against queued orders, identified by row.
+ */
+public interface PrepTimes {
+
+    double minutes(int barista, int row);
+
+    /**
+     * Whether every barista in the batch is expected to take the same time over any order.
+     */
+    boolean uniform();
+
+    static PrepTimes nominal(OrderTable orders) {
+        return new PrepTimes() {
+            @Override
+            public double minutes(int barista, int row) {
+                return orders.prepMinutes(row);
+            }
+
+            @Override
+            public boolean uniform() {
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package com.coffeeshop.scheduling;
+
+public interface QueueView {
+
+    int NONE = -1;
+
+    int oldest();
+
+    int highestPriority();
+
+    int shortestHighestPriority();
+
+    RowList rowsByArrival();
+
+    /** Queued rows of one drink, oldest first. */
+    RowList rowsOfDrink(int drink);
+
+    /**
+     * The first {@code k} rows {@link #highestPriority} would return if each were removed in turn.
+     */
+    int[] topByPriority(int k);
+}
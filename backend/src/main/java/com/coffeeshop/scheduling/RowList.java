@@ -0,0 +1,24 @@
+package com.coffeeshop.scheduling;
+
+/**
+ * Rows of an {@link OrderTable} in a fixed order, read by position so that walking them allocates
+ * nothing. A list reflects later changes to the queue it came from.
+ */
+public interface RowList {
+
+    RowList EMPTY = new RowList() {
+        @Override
+        public int size() {
+            return 0;
+        }
+
+        @Override
+        public int row(int index) {
+            throw new IndexOutOfBoundsException(index);
+        }
+    };
+
+    int size();
+
+    int row(int index);
+}
@@ -0,0 +1,177 @@
+package com.coffeeshop.scheduling;
+
+import java.util.Arrays;
+
+
+/**
+ * Queued rows of an {@link OrderTable}, indexed by priority, arrival, prep time and drink. Each
+ * index is a sorted {@code int[]} of rows, so adding, rescoring and removing a row shift part of an
+ * array rather than allocate, and lookups and iteration allocate nothing. Arrays only grow, and a
+ * prep time or drink gets its index the first time it is queued.
+ */
+public final class RowQueue implements QueueView {
+
+    private final OrderTable orders;
+    private final SortedRows.RowOrder byArrivalOrder;
+    private final SortedRows.RowOrder byPriorityOrder;
+    private final SortedRows byPriority;
+    private final SortedRows byArrival;
+    private SortedRows[] byPrepTime = new SortedRows[16];
+    private SortedRows[] byDrink = new SortedRows[8];
+
+    public RowQueue(OrderTable orders) {
+        this.orders = orders;
+        this.byArrivalOrder = (a, b) -> {
+            int c = Long.compare(orders.arrivalMillis(a), orders.arrivalMillis(b));
+            return c != 0 ? c : Long.compare(orders.id(a), orders.id(b));
+        };
+        this.byPriorityOrder = (a, b) -> {
+            int c = comparePriorityDescending(orders.priority(a), orders.priority(b));
+            return c != 0 ? c : byArrivalOrder.compare(a, b);
+        };
+        this.byPriority = new SortedRows(byPriorityOrder);
+        this.byArrival = new SortedRows(byArrivalOrder);
+    }
+
+    public void add(int row) {
+        if (!byArrival.add(row)) return;
+        byPriority.add(row);
+        prepTimeRows(orders.prepMinutes(row)).add(row);
+        drinkRows(orders.drink(row)).add(row);
+    }
+
+    public boolean remove(int row) {
+        if (!byArrival.remove(row)) return false;
+        byPriority.remove(row);
+        byPrepTime[orders.prepMinutes(row)].remove(row);
+        byDrink[orders.drink(row)].remove(row);
+        return true;
+    }
+
+    public boolean reprioritize(int row, double score) {
+        double current = orders.priority(row);
+        if (!Double.isNaN(current) && current == score) return false;
+        boolean queued = byArrival.contains(row);
+        if (queued) {
+            byPriority.remove(row);
+            byPrepTime[orders.prepMinutes(row)].remove(row);
+        }
+        orders.setPriority(row, score);
+        if (queued) {
+            byPriority.add(row);
+            byPrepTime[orders.prepMinutes(row)].add(row);
+        }
+        return true;
+    }
+
+    public boolean contains(int row) {
+        return byArrival.contains(row);
+    }
+
+    public int size() {
+        return byArrival.size();
+    }
+
+    public boolean isEmpty() {
+        return byArrival.isEmpty();
+    }
+
+    public void clear() {
+        byPriority.clear();
+        byArrival.clear();
+        for (SortedRows rows : byPrepTime) {
+            if (rows != null) rows.clear();
+        }
+        for (SortedRows rows : byDrink) {
+            if (rows != null) rows.clear();
+        }
+    }
+
+    @Override
+    public RowList rowsByArrival() {
+        return byArrival;
+    }
+
+    @Override
+    public RowList rowsOfDrink(int drink) {
+        SortedRows rows = drink < byDrink.length ? byDrink[drink] : null;
+        return rows == null ? RowList.EMPTY : rows;
+    }
+
+    public RowList rowsByPriority() {
+        return byPriority;
+    }
+
+    @Override
+    public int oldest() {
+        return byArrival.isEmpty() ? NONE : byArrival.row(0);
+    }
+
+
+    @Override
+    public int highestPriority() {
+        if (byPriority.isEmpty()) return NONE;
+        int top = byPriority.row(0);
+        if (Double.isNaN(orders.priority(top))) return top;
+        return byPriority.row(tiedUntil(0) - 1);
+    }
+
+    @Override
+    public int[] topByPriority(int k) {
+        int[] top = new int[Math.min(k, byPriority.size())];
+        int n = 0;
+        int groupFirst = 0;
+        while (n < top.length) {
+            if (Double.isNaN(orders.priority(byPriority.row(groupFirst)))) {
+                while (n < top.length) top[n++] = byPriority.row(groupFirst++);
+                break;
+            }
+            int groupEnd = tiedUntil(groupFirst);
+            for (int i = groupEnd - 1; i >= groupFirst && n < top.length; i--) top[n++] = byPriority.row(i);
+            groupFirst = groupEnd;
+        }
+        return top;
+    }
+
+    @Override
+    public int shortestHighestPriority() {
+        for (SortedRows rows : byPrepTime) {
+            if (rows != null && !rows.isEmpty()) return rows.row(0);
+        }
+        return NONE;
+    }
+
+    /** End of the run of scored rows in {@link #byPriority} that share the priority at {@code from}. */
+    private int tiedUntil(int from) {
+        double priority = orders.priority(byPriority.row(from));
+        int lo = from + 1;
+        int hi = byPriority.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comparePriorityDescending(orders.priority(byPriority.row(mid)), priority) > 0) hi = mid;
+            else lo = mid + 1;
+        }
+        return lo;
+    }
+
+    private SortedRows prepTimeRows(int prepMinutes) {
+        if (prepMinutes >= byPrepTime.length) {
+            byPrepTime = Arrays.copyOf(byPrepTime, Math.max(prepMinutes + 1, byPrepTime.length * 2));
+        }
+        if (byPrepTime[prepMinutes] == null) byPrepTime[prepMinutes] = new SortedRows(byPriorityOrder);
+        return byPrepTime[prepMinutes];
+    }
+
+    private SortedRows drinkRows(int drink) {
+        if (drink >= byDrink.length) byDrink = Arrays.copyOf(byDrink, Math.max(drink + 1, byDrink.length * 2));
+        if (byDrink[drink] == null) byDrink[drink] = new SortedRows(byArrivalOrder);
+        return byDrink[drink];
+    }
+
+    private static int comparePriorityDescending(double a, double b) {
+        boolean aUnscored = Double.isNaN(a);
+        boolean bUnscored = Double.isNaN(b);
+        if (aUnscored || bUnscored) return aUnscored == bUnscored ? 0 : (aUnscored ? 1 : -1);
+        return Double.compare(b, a);
+    }
+}
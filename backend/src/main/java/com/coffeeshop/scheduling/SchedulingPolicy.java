@@ -0,0 +1,33 @@
+package com.coffeeshop.scheduling;
+
+
+public interface SchedulingPolicy {
+
+    long NEVER = Long.MAX_VALUE;
+
+    long waitMinutes(long arrivalMillis, long assignedMillis, long nowMillis);
+
+    double priority(OrderTable orders, int row, long nowMillis);
+
+    long nextRescoreAt(OrderTable orders, int row, long nowMillis);
+
+    boolean isUrgent(long waitMinutes);
+
+    boolean shouldForceAssign(long waitMinutes);
+
+    boolean shouldAlert(long waitMinutes);
+
+    int selectNext(OrderTable orders, QueueView queue, double workloadRatio, long nowMillis);
+
+    /**
+     * Picks orders for several free baristas at once, given each one's workload ratio and expected
+     * prep times.
+     *
+     * @return the row for each barista, in the same order, or {@link QueueView#NONE} for a barista left idle
+     */
+    int[] selectBatch(OrderTable orders, QueueView queue, double[] workloadRatios, PrepTimes prepTimes, long nowMillis);
+
+    default long waitMinutes(OrderTable orders, int row, long nowMillis) {
+        return waitMinutes(orders.arrivalMillis(row), orders.assignedMillis(row), nowMillis);
+    }
+}
@@ -0,0 +1,79 @@
+package com.coffeeshop.scheduling;
+
+import java.util.Arrays;
+
+/**
+ * Rows kept sorted in a growable {@code int[]}. A row is found by binary search on the keys it was
+ * added with, so they must not change while it is in the list.
+ */
+final class SortedRows implements RowList {
+
+    @FunctionalInterface
+    interface RowOrder {
+        int compare(int a, int b);
+    }
+
+    private final RowOrder order;
+    private int[] rows = new int[16];
+    private int size;
+
+    SortedRows(RowOrder order) {
+        this.order = order;
+    }
+
+    boolean add(int row) {
+        int i = indexOf(row);
+        if (i >= 0) return false;
+        i = -i - 1;
+        if (size == rows.length) rows = Arrays.copyOf(rows, size * 2);
+        System.arraycopy(rows, i, rows, i + 1, size - i);
+        rows[i] = row;
+        size++;
+        return true;
+    }
+
+    boolean remove(int row) {
+        int i = indexOf(row);
+        if (i < 0) return false;
+        System.arraycopy(rows, i + 1, rows, i, size - i - 1);
+        size--;
+        return true;
+    }
+
+    boolean contains(int row) {
+        return indexOf(row) >= 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int row(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException(index);
+        return rows[index];
+    }
+
+    /** The row's position, or {@code -(insertion point) - 1} if it is not in the list. */
+    private int indexOf(int row) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = order.compare(rows[mid], row);
+            if (c < 0) lo = mid + 1;
+            else if (c > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -lo - 1;
+    }
+}
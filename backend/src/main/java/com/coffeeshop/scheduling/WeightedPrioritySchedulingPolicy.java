@@ -0,0 +1,216 @@
+package com.coffeeshop.scheduling;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+
+@Component
+public class WeightedPrioritySchedulingPolicy implements SchedulingPolicy {
+
+    private static final long MINUTE_MILLIS = 60_000;
+    private static final int FAIRNESS_PENALTY = 20;
+    private static final int MAX_LATER_ARRIVALS_BEFORE_PENALTY = 3;
+    private static final int WAIT_COMPONENT_CAP = 40;
+    private static final int EMERGENCY_BOOST = 50;
+    private static final double OVERLOADED_RATIO = 1.2;
+    private static final int MATCH_CANDIDATES = 16;
+    private static final double FORCED_UTILITY = 1_000;
+    private static final double BALANCE_WEIGHT = 2.0;
+    private static final double SPEED_WEIGHT = 15.0;
+    private static final double RANK_TIE_BREAK = 1e-6;
+
+    private final int maxWaitMinutes;
+    private final int warningThresholdMinutes;
+    private final double emergencyThresholdMinutes;
+    private final long lastChangeMinute;
+
+    public WeightedPrioritySchedulingPolicy(
+            @Value("${coffeeshop.max-wait-minutes:10}") int maxWaitMinutes,
+            @Value("${coffeeshop.warning-threshold-minutes:8}") int warningThresholdMinutes,
+            @Value("${coffeeshop.emergency-threshold-minutes:9.5}") double emergencyThresholdMinutes) {
+        this.maxWaitMinutes = maxWaitMinutes;
+        this.warningThresholdMinutes = warningThresholdMinutes;
+        this.emergencyThresholdMinutes = emergencyThresholdMinutes;
+        long saturation = Math.max(WAIT_COMPONENT_CAP / 5, warningThresholdMinutes + 1);
+        long thresholds = Math.max((long) Math.ceil(maxWaitMinutes - 0.5), (long) Math.ceil(emergencyThresholdMinutes));
+        this.lastChangeMinute = Math.max(saturation, thresholds);
+    }
+
+    public static WeightedPrioritySchedulingPolicy defaults() {
+        return new WeightedPrioritySchedulingPolicy(10, 8, 9.5);
+    }
+
+    @Override
+    public long waitMinutes(long arrivalMillis, long assignedMillis, long nowMillis) {
+        long until = assignedMillis != OrderTable.UNASSIGNED ? assignedMillis : nowMillis;
+        return (until - arrivalMillis) / MINUTE_MILLIS;
+    }
+
+    @Override
+    public double priority(OrderTable orders, int row, long nowMillis) {
+        double raw = staticComponent(orders, row) + timeComponent(waitMinutes(orders, row, nowMillis));
+        return Math.min(100, Math.max(0, raw));
+    }
+
+    private double staticComponent(OrderTable orders, int row) {
+        double complexityComponent = orders.complexityScore(row) * 0.25;
+        double loyaltyComponent = Math.min(10, orders.loyaltyBoost(row));
+        double fairnessComponent = 0;
+        if (orders.laterArrivalsServedFirst(row) > MAX_LATER_ARRIVALS_BEFORE_PENALTY && !orders.fairnessPenaltyApplied(row)) {
+            fairnessComponent = -FAIRNESS_PENALTY;
+        }
+        return complexityComponent + loyaltyComponent + fairnessComponent;
+    }
+
+    private double timeComponent(long waitMin) {
+        double waitComponent = Math.min(WAIT_COMPONENT_CAP, waitMin * 5);
+        double urgencyComponent;
+        if (waitMin > warningThresholdMinutes) {
+            urgencyComponent = 25 + EMERGENCY_BOOST;
+        } else if (waitMin > 6) {
+            urgencyComponent = 20;
+        } else if (waitMin > 4) {
+            urgencyComponent = 15;
+        } else {
+            urgencyComponent = (waitMin / 4.0) * 25;
+        }
+        return waitComponent + urgencyComponent;
+    }
+
+    @Override
+    public long nextRescoreAt(OrderTable orders, int row, long nowMillis) {
+        long waitMin = waitMinutes(orders, row, nowMillis);
+        if (waitMin >= lastChangeMinute) return NEVER;
+        return orders.arrivalMillis(row) + (Math.max(0, waitMin) + 1) * MINUTE_MILLIS;
+    }
+
+    @Override
+    public boolean isUrgent(long waitMinutes) {
+        return waitMinutes > warningThresholdMinutes;
+    }
+
+    @Override
+    public boolean shouldForceAssign(long waitMinutes) {
+        return waitMinutes >= maxWaitMinutes - 0.5;
+    }
+
+    @Override
+    public boolean shouldAlert(long waitMinutes) {
+        return waitMinutes >= emergencyThresholdMinutes;
+    }
+
+    @Override
+    public int selectNext(OrderTable orders, QueueView queue, double workloadRatio, long nowMillis) {
+        int oldest = queue.oldest();
+        if (oldest == QueueView.NONE) return QueueView.NONE;
+        if (shouldForceAssign(waitMinutes(orders, oldest, nowMillis))) return oldest;
+        if (workloadRatio > OVERLOADED_RATIO) {
+            return queue.shortestHighestPriority();
+        }
+        return queue.highestPriority();
+    }
+
+    /**
+     * Matches the free baristas against the top {@code MATCH_CANDIDATES} queued orders (more if
+     * there are more free baristas), maximising total priority less a speed cost, each order
+     * going preferably to whoever is expected to make it fastest, and a balance cost: a barista
+     * busier than the others' average is steered to shorter drinks, a quieter one to longer
+     * drinks. Orders due for a forced assignment go first, oldest first. Baristas with the same
+     * workload ratio and prep times are interchangeable, so their orders are handed out in candidate order,
+     * which makes a batch of identical baristas pick exactly what {@link #selectNext} would, one
+     * barista at a time; when every free barista is alike no matching is needed at all.
+     */
+    @Override
+    public int[] selectBatch(OrderTable orders, QueueView queue, double[] workloadRatios, PrepTimes prepTimes,
+                             long nowMillis) {
+        int baristas = workloadRatios.length;
+        int[] selected = new int[baristas];
+        Arrays.fill(selected, QueueView.NONE);
+        if (baristas == 0) return selected;
+        if (baristas == 1) {
+            selected[0] = selectNext(orders, queue, workloadRatios[0], nowMillis);
+            return selected;
+        }
+        boolean interchangeable = prepTimes.uniform() && Arrays.stream(workloadRatios).allMatch(r -> r == workloadRatios[0]);
+        int[] candidates = candidates(orders, queue, baristas, interchangeable ? baristas : MATCH_CANDIDATES, nowMillis);
+        if (interchangeable) {
+            System.arraycopy(candidates, 0, selected, 0, candidates.length);
+            return selected;
+        }
+
+        double meanRatio = Arrays.stream(workloadRatios).average().orElse(1.0);
+        double[][] cost = new double[baristas][candidates.length];
+        for (int j = 0; j < candidates.length; j++) {
+            int row = candidates[j];
+            boolean forced = shouldForceAssign(waitMinutes(orders, row, nowMillis));
+            double priority = Double.isNaN(orders.priority(row)) ? 0 : orders.priority(row);
+            double utility = (forced ? FORCED_UTILITY : priority) - j * RANK_TIE_BREAK;
+            double[] prep = new double[baristas];
+            double meanPrep = 0;
+            for (int i = 0; i < baristas; i++) {
+                prep[i] = prepTimes.minutes(i, row);
+                meanPrep += prep[i] / baristas;
+            }
+            for (int i = 0; i < baristas; i++) {
+                double speed = SPEED_WEIGHT * (prep[i] - meanPrep);
+                double balance = BALANCE_WEIGHT * (workloadRatios[i] - meanRatio) * prep[i];
+                cost[i][j] = speed + balance - utility;
+            }
+        }
+        int[] match = AssignmentSolver.solve(cost);
+        if (!prepTimes.uniform()) {
+            for (int i = 0; i < baristas; i++) {
+                if (match[i] != AssignmentSolver.UNASSIGNED) selected[i] = candidates[match[i]];
+            }
+            return selected;
+        }
+
+        Integer[] byRatio = new Integer[baristas];
+        for (int i = 0; i < baristas; i++) byRatio[i] = i;
+        Arrays.sort(byRatio, (a, b) -> Double.compare(workloadRatios[a], workloadRatios[b]));
+        for (int start = 0, end; start < baristas; start = end) {
+            end = start + 1;
+            while (end < baristas && workloadRatios[byRatio[end]] == workloadRatios[byRatio[start]]) end++;
+            int[] group = new int[end - start];
+            int[] matched = new int[end - start];
+            int count = 0;
+            for (int k = start; k < end; k++) {
+                group[k - start] = byRatio[k];
+                if (match[byRatio[k]] != AssignmentSolver.UNASSIGNED) matched[count++] = match[byRatio[k]];
+            }
+            Arrays.sort(group);
+            Arrays.sort(matched, 0, count);
+            for (int k = 0; k < count; k++) selected[group[k]] = candidates[matched[k]];
+        }
+        return selected;
+    }
+
+    /** Orders due for a forced assignment by arrival, then the rest by priority, as selectNext would take them. */
+    private int[] candidates(OrderTable orders, QueueView queue, int baristas, int wanted, long nowMillis) {
+        int limit = Math.max(baristas, wanted);
+        int[] forced = new int[baristas];
+        int forcedCount = 0;
+        RowList byArrival = queue.rowsByArrival();
+        for (int i = 0; i < byArrival.size(); i++) {
+            int row = byArrival.row(i);
+            if (forcedCount == baristas || !shouldForceAssign(waitMinutes(orders, row, nowMillis))) break;
+            forced[forcedCount++] = row;
+        }
+        int[] top = queue.topByPriority(limit + forcedCount);
+        int[] candidates = Arrays.copyOf(forced, Math.min(limit, top.length));
+        int n = forcedCount;
+        for (int k = 0; k < top.length && n < candidates.length; k++) {
+            if (!contains(forced, forcedCount, top[k])) candidates[n++] = top[k];
+        }
+        return candidates;
+    }
+
+    private static boolean contains(int[] rows, int count, int row) {
+        for (int i = 0; i < count; i++) {
+            if (rows[i] == row) return true;
+        }
+        return false;
+    }
+}
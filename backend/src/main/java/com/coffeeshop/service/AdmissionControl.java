@@ -0,0 +1,126 @@
+package com.coffeeshop.service;
+
+import com.coffeeshop.dto.AdmissionDTO;
+import com.coffeeshop.event.OrderChangedEvent;
+import com.coffeeshop.model.Order;
+import com.coffeeshop.scheduling.AdmissionPolicy;
+import com.coffeeshop.scheduling.DrinkBatching;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * Admission control in front of {@link OrderIntake}. A new order's wait is predicted by the
+ * {@link AdmissionPolicy} from the store's queue as its last tick left it, the orders accepted
+ * since, and the store's recent arrival and start rates, all read without taking the store's
+ * lock. A shed order is pointed at the store with the shortest predicted wait, if that store
+ * would take it without a quote.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AdmissionControl {
+
+    private final AdmissionPolicy admissionPolicy;
+    private final SchedulingPartitions schedulingPartitions;
+    private final OrderIntake orderIntake;
+    private final DrinkBatching drinkBatching;
+
+    private final ConcurrentMap<Long, AdmissionPolicy.Rates> rates = new ConcurrentHashMap<>();
+    private final Set<Long> overloaded = ConcurrentHashMap.newKeySet();
+
+    public record Admission(AdmissionPolicy.Decision decision, double predictedWaitMinutes, boolean overloaded,
+                            Long divertToStoreId) {}
+
+    private record Prediction(double waitMinutes, boolean overloaded) {}
+
+    public Admission admit(long storeId, Instant now) {
+        if (!admissionPolicy.isEnabled()) return new Admission(AdmissionPolicy.Decision.ACCEPT, 0, false, null);
+        long nowMillis = now.toEpochMilli();
+        rates(storeId, nowMillis).onArrival(nowMillis);
+        Prediction prediction = predict(storeId, nowMillis);
+        trackOverload(storeId, prediction.overloaded(), nowMillis);
+
+        AdmissionPolicy.Decision decision = admissionPolicy.decide(prediction.waitMinutes());
+        Long divertTo = null;
+        if (decision == AdmissionPolicy.Decision.SHED) {
+            divertTo = divertTarget(storeId, nowMillis);
+            log.info("ADMISSION: Store {} shedding order, predicted wait {} min over the {} min SLA{}", storeId,
+                String.format("%.1f", prediction.waitMinutes()), admissionPolicy.slaMinutes(),
+                divertTo != null ? ", diverting to store " + divertTo : "");
+        }
+        return new Admission(decision, prediction.waitMinutes(), prediction.overloaded(), divertTo);
+    }
+
+    public AdmissionDTO toDTO(Admission admission) {
+        double wait = admission.predictedWaitMinutes();
+        return AdmissionDTO.builder()
+            .decision(admission.decision().name())
+            .predictedWaitMinutes(Double.isInfinite(wait) ? null : (long) Math.ceil(wait))
+            .slaMinutes(admissionPolicy.slaMinutes())
+            .overloaded(admission.overloaded())
+            .divertToStoreId(admission.divertToStoreId())
+            .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (!admissionPolicy.isEnabled() || event.change() != OrderChangedEvent.Change.ASSIGNED) return;
+        Order o = event.order();
+        long at = o.getAssignmentTime().toEpochMilli();
+        double minutes = drinkBatching.batchMinutes(o.getPrepTimeMinutes(), o.getBatchSize()) / o.getBatchSize();
+        rates(o.getStoreId(), at).onStarts(at, 1, minutes);
+    }
+
+    /**
+     * Until a known store has ticked there is nothing to predict from, and its orders are taken;
+     * shedding them would also hold off the tick that would tell. A store that ticked without
+     * baristas would never start an order, so its wait is unbounded and it is shed.
+     */
+    private Prediction predict(long storeId, long nowMillis) {
+        SchedulingIndex.Load load = schedulingPartitions.forStore(storeId).lastTickLoad();
+        if (load == null) return new Prediction(0, false);
+        if (load.baristas() == 0) return new Prediction(Double.POSITIVE_INFINITY, true);
+        int backlog = load.queued() + orderIntake.pending(storeId) + 1 - load.idleBaristas();
+        AdmissionPolicy.Rates storeRates = rates(storeId, nowMillis);
+        return new Prediction(admissionPolicy.predictedWaitMinutes(backlog, load.baristas(), storeRates, nowMillis),
+            admissionPolicy.isOverloaded(backlog, load.baristas(), storeRates, nowMillis));
+    }
+
+    private Long divertTarget(long storeId, long nowMillis) {
+        Long best = null;
+        double bestWait = Double.POSITIVE_INFINITY;
+        for (SchedulingIndex index : schedulingPartitions.all()) {
+            if (index.storeId() == storeId) continue;
+            Prediction prediction = predict(index.storeId(), nowMillis);
+            if (admissionPolicy.decide(prediction.waitMinutes()) == AdmissionPolicy.Decision.ACCEPT
+                    && prediction.waitMinutes() < bestWait) {
+                best = index.storeId();
+                bestWait = prediction.waitMinutes();
+            }
+        }
+        return best;
+    }
+
+    private void trackOverload(long storeId, boolean isOverloaded, long nowMillis) {
+        if (isOverloaded && overloaded.add(storeId)) {
+            AdmissionPolicy.Rates storeRates = rates.get(storeId);
+            log.warn("ALERT: Store {} is overloaded - {} orders/min arriving, {} starting",
+                storeId, String.format("%.2f", storeRates.arrivalsPerMinute(nowMillis)),
+                String.format("%.2f", storeRates.startsPerMinute(nowMillis)));
+        } else if (!isOverloaded && overloaded.remove(storeId)) {
+            log.info("Store {} is no longer overloaded", storeId);
+        }
+    }
+
+    private AdmissionPolicy.Rates rates(long storeId, long nowMillis) {
+        return rates.computeIfAbsent(storeId, id -> admissionPolicy.newRates(nowMillis));
+    }
+}
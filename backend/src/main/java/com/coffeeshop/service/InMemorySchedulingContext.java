@@ -0,0 +1,70 @@
+package com.coffeeshop.service;
+
+import com.coffeeshop.event.OrderChangedEvent;
+import com.coffeeshop.repository.memory.InMemoryAssignmentRepository;
+import com.coffeeshop.repository.memory.InMemoryBaristaRepository;
+import com.coffeeshop.repository.memory.InMemoryMetricsRepository;
+import com.coffeeshop.repository.memory.InMemoryOrderRepository;
+import com.coffeeshop.scheduling.AdmissionPolicy;
+import com.coffeeshop.scheduling.DrinkBatching;
+import com.coffeeshop.scheduling.PrepTimeModel;
+import com.coffeeshop.scheduling.SchedulingPolicy;
+import lombok.Getter;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionOperations;
+
+
+@Getter
+public class InMemorySchedulingContext {
+
+
+    private final InMemoryOrderRepository orderRepository = new InMemoryOrderRepository();
+    private final InMemoryBaristaRepository baristaRepository = new InMemoryBaristaRepository();
+    private final InMemoryAssignmentRepository assignmentRepository = new InMemoryAssignmentRepository();
+    private final InMemoryMetricsRepository metricsRepository = new InMemoryMetricsRepository();
+
+    private final MetricsAggregator metricsAggregator = new MetricsAggregator(orderRepository);
+    private final PrepTimeModel prepTimeModel;
+    private final SchedulingPartitions schedulingPartitions;
+    private final OrderIntake orderIntake;
+    private final PriorityService priorityService;
+    private final MetricsService metricsService;
+    private final SchedulerService schedulerService;
+    private final SimulationService simulationService;
+    private final QueueEtaEngine queueEtaEngine;
+    private final OrderService orderService;
+
+    public InMemorySchedulingContext(AutowireCapableBeanFactory beanFactory) {
+        ApplicationEventPublisher events = this::publish;
+        prepTimeModel = beanFactory.createBean(PrepTimeModel.class);
+        DrinkBatching drinkBatching = beanFactory.createBean(DrinkBatching.class);
+        schedulingPartitions = new SchedulingPartitions(orderRepository, baristaRepository, beanFactory.getBean(SchedulingPolicy.class),
+            prepTimeModel, drinkBatching, events, Runnable::run);
+        orderIntake = configure(beanFactory, new OrderIntake(orderRepository, orderRepository,
+            TransactionOperations.withoutTransaction(), events));
+        priorityService = new PriorityService(schedulingPartitions);
+        metricsService = new MetricsService(metricsRepository, metricsAggregator);
+        schedulerService = configure(beanFactory, new SchedulerService(orderRepository, baristaRepository,
+            assignmentRepository, priorityService, schedulingPartitions, orderIntake, events,
+            TransactionOperations.withoutTransaction()));
+        simulationService = configure(beanFactory, new SimulationService(orderRepository, baristaRepository,
+            assignmentRepository, schedulerService, schedulingPartitions, orderIntake,
+            new AdmissionControl(AdmissionPolicy.disabled(), schedulingPartitions, orderIntake, drinkBatching)));
+        queueEtaEngine = configure(beanFactory, new QueueEtaEngine(baristaRepository, schedulingPartitions, prepTimeModel));
+        orderService = new OrderService(orderRepository, baristaRepository, priorityService, schedulingPartitions,
+            queueEtaEngine);
+    }
+
+    private void publish(Object event) {
+        if (event instanceof OrderChangedEvent change) {
+            metricsAggregator.onOrderChanged(change);
+            queueEtaEngine.onOrderChanged(change);
+        }
+    }
+
+    private static <T> T configure(AutowireCapableBeanFactory beanFactory, T service) {
+        beanFactory.autowireBean(service);
+        return service;
+    }
+}
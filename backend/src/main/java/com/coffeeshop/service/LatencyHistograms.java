@@ -0,0 +1,120 @@
+package com.coffeeshop.service;
+
+import com.coffeeshop.dto.LatencyDTO;
+import com.coffeeshop.model.DrinkType;
+import org.HdrHistogram.Histogram;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.DataFormatException;
+
+
+/**
+ * Wait, prep and end-to-end time distributions, overall and per barista and drink type. Each one
+ * is a fixed-size HdrHistogram in milliseconds with two significant digits, so instances can be
+ * merged and stored compactly no matter how many orders they cover.
+ */
+final class LatencyHistograms {
+
+    static final String WAIT = "wait";
+    static final String PREP = "prep";
+    static final String END_TO_END = "endToEnd";
+    static final String ALL = "all";
+
+    private static final long HIGHEST_MILLIS = Duration.ofDays(1).toMillis();
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final double MINUTE_MILLIS = 60_000.0;
+
+    private final Map<String, Histogram> histograms = new TreeMap<>();
+
+    void record(Instant arrival, Instant assigned, Instant completed, Long baristaId, DrinkType drinkType) {
+        List<String> dimensions = new ArrayList<>(3);
+        dimensions.add(ALL);
+        if (baristaId != null) dimensions.add("barista:" + baristaId);
+        if (drinkType != null) dimensions.add("drink:" + drinkType);
+        if (arrival != null && assigned != null) record(WAIT, dimensions, assigned.toEpochMilli() - arrival.toEpochMilli());
+        if (assigned != null && completed != null) record(PREP, dimensions, completed.toEpochMilli() - assigned.toEpochMilli());
+        if (arrival != null && completed != null) record(END_TO_END, dimensions, completed.toEpochMilli() - arrival.toEpochMilli());
+    }
+
+    void add(LatencyHistograms other) {
+        other.histograms.forEach((key, h) -> histogram(key).add(h));
+    }
+
+    void clear() {
+        histograms.clear();
+    }
+
+    boolean isEmpty() {
+        return histograms.isEmpty();
+    }
+
+    List<LatencyDTO> summarize() {
+        List<LatencyDTO> result = new ArrayList<>(histograms.size());
+        histograms.forEach((key, h) -> {
+            int slash = key.indexOf('/');
+            result.add(LatencyDTO.builder()
+                .series(key.substring(0, slash))
+                .dimension(key.substring(slash + 1))
+                .count(h.getTotalCount())
+                .p50Minutes(h.getValueAtPercentile(50) / MINUTE_MILLIS)
+                .p90Minutes(h.getValueAtPercentile(90) / MINUTE_MILLIS)
+                .p99Minutes(h.getValueAtPercentile(99) / MINUTE_MILLIS)
+                .p999Minutes(h.getValueAtPercentile(99.9) / MINUTE_MILLIS)
+                .maxMinutes(h.getMaxValue() / MINUTE_MILLIS)
+                .build());
+        });
+        return result;
+    }
+
+    byte[] encode() {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+             DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(histograms.size());
+            for (Map.Entry<String, Histogram> e : histograms.entrySet()) {
+                ByteBuffer buffer = ByteBuffer.allocate(e.getValue().getNeededByteBufferCapacity());
+                int length = e.getValue().encodeIntoCompressedByteBuffer(buffer);
+                out.writeUTF(e.getKey());
+                out.writeInt(length);
+                out.write(buffer.array(), 0, length);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static LatencyHistograms decode(byte[] encoded) {
+        LatencyHistograms result = new LatencyHistograms();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                result.histogram(key).add(Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(data), HIGHEST_MILLIS));
+            }
+        } catch (IOException | DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt latency histogram snapshot", e);
+        }
+        return result;
+    }
+
+    private void record(String series, List<String> dimensions, long millis) {
+        long value = Math.min(HIGHEST_MILLIS, Math.max(0, millis));
+        for (String dimension : dimensions) {
+            histogram(series + "/" + dimension).recordValue(value);
+        }
+    }
+
+    private Histogram histogram(String key) {
+        return histograms.computeIfAbsent(key, k -> new Histogram(HIGHEST_MILLIS, SIGNIFICANT_DIGITS));
+    }
+}
@@ -0,0 +1,207 @@
+package com.coffeeshop.service;
+
+import com.coffeeshop.dto.MetricsDTO;
+import com.coffeeshop.dto.MetricsWindowDTO;
+import com.coffeeshop.event.OrderChangedEvent;
+import com.coffeeshop.model.Order;
+import com.coffeeshop.model.OrderStatus;
+import com.coffeeshop.repository.OrderMetricsRow;
+import com.coffeeshop.repository.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Running totals behind {@code /metrics}, kept up to date from committed order changes instead of
+ * rescanning the orders table. Completions also land in per-minute buckets covering the last day,
+ * which the 15-minute, 1-hour and 24-hour windows are summed from, and into latency histograms:
+ * one set since startup and one since the last persisted snapshot. Rebuilt from the database once
+ * at startup.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MetricsAggregator {
+
+    private static final int MAX_WAIT_MINUTES = 10;
+    private static final int MAX_LATER_ARRIVALS_BEFORE_PENALTY = 3;
+    private static final int BUCKETS = 24 * 60;
+    private static final int[] WINDOW_MINUTES = {15, 60, 24 * 60};
+    private static final String[] WINDOW_NAMES = {"15m", "1h", "24h"};
+
+    private final OrderRepository orderRepository;
+
+    private int totalOrders;
+    private int queued;
+    private int fairnessViolations;
+    private final Window allTime = new Window();
+    private final LatencyHistograms latency = new LatencyHistograms();
+    private LatencyHistograms sinceSnapshot = new LatencyHistograms();
+
+    private final long[] bucketMinute = new long[BUCKETS];
+    private final Window[] buckets = new Window[BUCKETS];
+
+    {
+        for (int i = 0; i < BUCKETS; i++) buckets[i] = new Window();
+        Arrays.fill(bucketMinute, Long.MIN_VALUE);
+    }
+
+    @PostConstruct
+    public synchronized void rebuild() {
+        reset();
+        for (OrderMetricsRow o : orderRepository.findAllMetricsRows()) {
+            totalOrders++;
+            if (o.getStatus() == OrderStatus.QUEUED) queued++;
+            if (o.getLaterArrivalsServedFirst() > MAX_LATER_ARRIVALS_BEFORE_PENALTY) fairnessViolations++;
+            if (o.getStatus() == OrderStatus.COMPLETED) {
+                recordCompletion(o.getArrivalTime(), o.getAssignmentTime(), o.getCompletionTime(), o.getLaterArrivalsServedFirst());
+                latency.record(o.getArrivalTime(), o.getAssignmentTime(), o.getCompletionTime(), o.getBaristaId(), o.getDrinkType());
+            }
+        }
+        log.info("Metrics rebuilt: {} orders, {} completed, {} queued", totalOrders, allTime.completed, queued);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onOrderChanged(OrderChangedEvent event) {
+        Order o = event.order();
+        switch (event.change()) {
+            case ENQUEUED -> {
+                totalOrders++;
+                queued++;
+            }
+            case ASSIGNED -> queued = Math.max(0, queued - 1);
+            case PENALIZED -> fairnessViolations++;
+            case COMPLETED -> {
+                recordCompletion(o.getArrivalTime(), o.getAssignmentTime(), o.getCompletionTime(), o.getLaterArrivalsServedFirst());
+                Long baristaId = o.getBarista() != null ? o.getBarista().getId() : null;
+                latency.record(o.getArrivalTime(), o.getAssignmentTime(), o.getCompletionTime(), baristaId, o.getDrinkType());
+                sinceSnapshot.record(o.getArrivalTime(), o.getAssignmentTime(), o.getCompletionTime(), baristaId, o.getDrinkType());
+            }
+            case RESCORED -> {
+            }
+        }
+    }
+
+    public synchronized MetricsDTO snapshot(Instant now) {
+        long nowMinute = Math.floorDiv(now.toEpochMilli(), 60_000);
+        Window[] windows = new Window[WINDOW_MINUTES.length];
+        for (int w = 0; w < windows.length; w++) windows[w] = new Window();
+        for (int i = 0; i < BUCKETS; i++) {
+            long age = nowMinute - bucketMinute[i];
+            if (bucketMinute[i] == Long.MIN_VALUE || age < 0) continue;
+            for (int w = 0; w < windows.length; w++) {
+                if (age < WINDOW_MINUTES[w]) windows[w].add(buckets[i]);
+            }
+        }
+        List<MetricsWindowDTO> windowDtos = new ArrayList<>(windows.length);
+        for (int w = 0; w < windows.length; w++) {
+            Window win = windows[w];
+            windowDtos.add(MetricsWindowDTO.builder()
+                .window(WINDOW_NAMES[w])
+                .ordersCompleted(win.completed)
+                .avgWaitTimeMinutes(win.avgWait())
+                .maxWaitTimeMinutes(win.maxWait)
+                .timeoutRate(win.timeoutRate())
+                .fairnessViolations(win.fairnessViolations)
+                .build());
+        }
+
+        return MetricsDTO.builder()
+            .avgWaitTimeMinutes(allTime.avgWait())
+            .maxWaitTimeMinutes(allTime.maxWait)
+            .timeoutRate(allTime.timeoutRate())
+            .fairnessViolations(fairnessViolations)
+            .totalOrdersProcessed(totalOrders)
+            .totalOrdersCompleted(allTime.completed)
+            .queueSize(queued)
+            .recordedAt(now)
+            .windows(windowDtos)
+            .latency(latency.summarize())
+            .build();
+    }
+
+    /** Hands over everything recorded since the previous call, or {@code null} if nothing was. */
+    synchronized LatencyHistograms drainSinceSnapshot() {
+        if (sinceSnapshot.isEmpty()) return null;
+        LatencyHistograms drained = sinceSnapshot;
+        sinceSnapshot = new LatencyHistograms();
+        return drained;
+    }
+
+    private void recordCompletion(Instant arrival, Instant assigned, Instant completed, int laterArrivalsServedFirst) {
+        Window bucket = null;
+        if (completed != null) {
+            long minute = Math.floorDiv(completed.toEpochMilli(), 60_000);
+            int idx = (int) Math.floorMod(minute, (long) BUCKETS);
+            if (bucketMinute[idx] < minute) {
+                bucketMinute[idx] = minute;
+                buckets[idx].clear();
+            }
+            if (bucketMinute[idx] == minute) bucket = buckets[idx];
+        }
+        double waitMin = assigned != null ? (assigned.toEpochMilli() - arrival.toEpochMilli()) / 60_000.0 : Double.NaN;
+        boolean unfair = laterArrivalsServedFirst > MAX_LATER_ARRIVALS_BEFORE_PENALTY;
+        allTime.record(waitMin, unfair);
+        if (bucket != null) bucket.record(waitMin, unfair);
+    }
+
+    private void reset() {
+        totalOrders = 0;
+        queued = 0;
+        fairnessViolations = 0;
+        allTime.clear();
+        latency.clear();
+        Arrays.fill(bucketMinute, Long.MIN_VALUE);
+        for (Window b : buckets) b.clear();
+    }
+
+
+    private static final class Window {
+        int completed;
+        int timeouts;
+        int fairnessViolations;
+        double waitSum;
+        double maxWait;
+
+        void record(double waitMin, boolean unfair) {
+            completed++;
+            if (unfair) fairnessViolations++;
+            if (Double.isNaN(waitMin)) return;
+            waitSum += waitMin;
+            if (waitMin > maxWait) maxWait = waitMin;
+            if (waitMin >= MAX_WAIT_MINUTES) timeouts++;
+        }
+
+        void add(Window other) {
+            completed += other.completed;
+            timeouts += other.timeouts;
+            fairnessViolations += other.fairnessViolations;
+            waitSum += other.waitSum;
+            maxWait = Math.max(maxWait, other.maxWait);
+        }
+
+        void clear() {
+            completed = 0;
+            timeouts = 0;
+            fairnessViolations = 0;
+            waitSum = 0;
+            maxWait = 0;
+        }
+
+        double avgWait() {
+            return completed == 0 ? 0 : waitSum / completed;
+        }
+
+        double timeoutRate() {
+            return completed == 0 ? 0 : (double) timeouts / completed;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.coffeeshop.service;
+
+import com.coffeeshop.event.OrderAcceptedEvent;
+import com.coffeeshop.model.DrinkType;
+import com.coffeeshop.model.LoyaltyStatus;
+import com.coffeeshop.model.Order;
+import com.coffeeshop.model.OrderStatus;
+import com.coffeeshop.repository.OrderIdAllocator;
+import com.coffeeshop.repository.OrderRepository;
+import com.coffeeshop.util.MpscRingBuffer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * Accepts new orders without touching the database or a scheduling lock: the order gets its id
+ * from the {@link OrderIdAllocator} and goes into its store's ring buffer. The buffer is written
+ * in one batch every {@code coffeeshop.intake.flush-interval-ms} and again at the start of each
+ * store tick, which is also when the written orders join the queue.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class OrderIntake {
+
+    private final OrderRepository orderRepository;
+    private final OrderIdAllocator orderIdAllocator;
+    private final TransactionOperations transactions;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${coffeeshop.intake.capacity:4096}")
+    private int capacity;
+
+    private final ConcurrentMap<Long, StoreIntake> stores = new ConcurrentHashMap<>();
+
+    /**
+     * @return the accepted order, or {@code null} if the store's buffer is full
+     */
+    public Order accept(long storeId, String customerName, DrinkType drinkType, LoyaltyStatus loyaltyStatus) {
+        Order order = Order.builder()
+            .id(orderIdAllocator.nextId())
+            .storeId(storeId)
+            .customerName(customerName)
+            .drinkType(drinkType)
+            .loyaltyStatus(loyaltyStatus != null ? loyaltyStatus : LoyaltyStatus.REGULAR)
+            .status(OrderStatus.QUEUED)
+            .arrivalTime(Instant.now())
+            .build();
+        StoreIntake intake = stores.computeIfAbsent(storeId, id -> new StoreIntake(capacity));
+        intake.pending.incrementAndGet();
+        if (!intake.accepted.offer(order)) {
+            intake.pending.decrementAndGet();
+            log.warn("Order intake for store {} is full ({} orders), rejecting order {}", storeId,
+                intake.accepted.capacity(), order.getId());
+            return null;
+        }
+        eventPublisher.publishEvent(new OrderAcceptedEvent(order));
+        return order;
+    }
+
+    /** Orders accepted for the store that have not joined its queue yet. */
+    public int pending(long storeId) {
+        StoreIntake intake = stores.get(storeId);
+        return intake == null ? 0 : intake.pending.get();
+    }
+
+    public Collection<Long> storeIds() {
+        return stores.keySet();
+    }
+
+    @Scheduled(fixedDelayString = "${coffeeshop.intake.flush-interval-ms:1000}")
+    public void flush() {
+        for (StoreIntake intake : stores.values()) {
+            if (!intake.writer.tryLock()) continue;
+            try {
+                write(intake);
+            } finally {
+                intake.writer.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes whatever the store has buffered and puts every written order into its queue. Runs
+     * outside the tick's transaction, so a failed tick cannot roll back orders already acknowledged.
+     */
+    public void drainInto(SchedulingIndex schedulingIndex) {
+        StoreIntake intake = stores.get(schedulingIndex.storeId());
+        if (intake == null) return;
+        intake.writer.lock();
+        try {
+            write(intake);
+        } finally {
+            intake.writer.unlock();
+        }
+        if (intake.written.isEmpty()) return;
+        synchronized (schedulingIndex) {
+            Order o;
+            while ((o = intake.written.poll()) != null) {
+                schedulingIndex.enqueue(o);
+                intake.pending.decrementAndGet();
+            }
+        }
+    }
+
+    private void write(StoreIntake intake) {
+        List<Order> batch = intake.unwritten;
+        intake.accepted.drainTo(batch);
+        if (batch.isEmpty()) return;
+        transactions.executeWithoutResult(status -> orderRepository.saveAll(batch));
+        intake.written.addAll(batch);
+        batch.clear();
+    }
+
+
+    private static final class StoreIntake {
+
+        final MpscRingBuffer<Order> accepted;
+        final ReentrantLock writer = new ReentrantLock();
+        final List<Order> unwritten = new ArrayList<>();
+        final Queue<Order> written = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pending = new AtomicInteger();
+
+        StoreIntake(int capacity) {
+            this.accepted = new MpscRingBuffer<>(capacity);
+        }
+    }
+}
@@ -2,18 +2,24 @@ package com.coffeeshop.service;
 
 import com.coffeeshop.dto.BaristaDTO;
 import com.coffeeshop.dto.OrderDTO;
+import com.coffeeshop.dto.OrderFilter;
 import com.coffeeshop.model.Order;
-import com.coffeeshop.model.OrderStatus;
 import com.coffeeshop.model.Barista;
+import com.coffeeshop.repository.OrderListRow;
 import com.coffeeshop.repository.OrderRepository;
 import com.coffeeshop.repository.BaristaRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 
@@ -24,68 +30,194 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final BaristaRepository baristaRepository;
     private final PriorityService priorityService;
+    private final SchedulingPartitions schedulingPartitions;
+    private final QueueEtaEngine queueEtaEngine;
 
-    private final List<OrderDTO> accumulatedTestOrders = Collections.synchronizedList(new ArrayList<>());
+    private static final int PAGE_SIZE = 500;
+    private static final Comparator<OrderDTO> BY_ARRIVAL = Comparator
+        .comparing(OrderDTO::getArrivalTime)
+        .thenComparing(OrderDTO::getId);
+
+    @Value("${coffeeshop.simulation.retained-test-orders:2500}")
+    private int retainedTestOrders;
+
+    private final Deque<OrderDTO> accumulatedTestOrders = new ArrayDeque<>();
 
     public void clearAccumulatedTestOrders() {
-        accumulatedTestOrders.clear();
+        synchronized (accumulatedTestOrders) {
+            accumulatedTestOrders.clear();
+        }
     }
 
     public void appendRunOrders(List<Order> orders, int runIndex, Instant now) {
+        appendRunOrders(toRunOrderDTOs(orders, runIndex, now));
+    }
+
+    /**
+     * Keeps the most recent {@code coffeeshop.simulation.retained-test-orders} test orders; older ones
+     * are dropped as new runs come in.
+     */
+    public void appendRunOrders(List<OrderDTO> runOrders) {
+        synchronized (accumulatedTestOrders) {
+            accumulatedTestOrders.addAll(runOrders);
+            while (accumulatedTestOrders.size() > retainedTestOrders) accumulatedTestOrders.pollFirst();
+        }
+    }
+
+    public List<OrderDTO> toRunOrderDTOs(List<Order> orders, int runIndex, Instant now) {
+        List<OrderDTO> dtos = new ArrayList<>(orders.size());
         int idx = 0;
         for (Order o : orders) {
             long syntheticId = (long) runIndex * 1000 + idx;
-            accumulatedTestOrders.add(toOrderDTO(o, now, syntheticId));
+            dtos.add(toOrderDTO(o, now, syntheticId));
             idx++;
         }
+        return dtos;
     }
 
-    public List<OrderDTO> getQueue() {
+    /** Only a store with baristas on its roster can take orders; any other would hold them forever. */
+    public boolean hasBaristas(long storeId) {
+        return baristaRepository.existsByStoreId(storeId);
+    }
+
+    public List<OrderDTO> getQueue(long storeId) {
         Instant now = Instant.now();
-        List<Order> queue = priorityService.getPrioritizedQueue(now);
+        List<Order> queue = priorityService.getPrioritizedQueue(storeId, now);
         return queue.stream().map(o -> toOrderDTO(o, now)).collect(Collectors.toList());
     }
 
 
-    public List<OrderDTO> getAllOrders() {
-        if (!accumulatedTestOrders.isEmpty()) {
-            return new ArrayList<>(accumulatedTestOrders);
+    /**
+     * Hands {@code sink} up to {@code limit} orders matching the filter that come after the
+     * (arrivalTime, id) cursor, in that order. Rows are read {@value PAGE_SIZE} at a time through a
+     * projection, so memory stays flat however long the history is. After a test simulation, its
+     * retained orders are listed instead.
+     */
+    public void forEachOrder(OrderFilter filter, Instant after, Long afterId, int limit, Consumer<OrderDTO> sink) {
+        Instant afterArrival = after != null ? after : filter.from();
+        long afterOrderId = afterId != null ? afterId : after != null ? Long.MAX_VALUE : Long.MIN_VALUE;
+
+        List<OrderDTO> testOrders = retainedTestOrders(filter, afterArrival, afterOrderId, limit);
+        if (testOrders != null) {
+            testOrders.forEach(sink);
+            return;
         }
+
         Instant now = Instant.now();
-        return orderRepository.findAll().stream()
-            .map(o -> toOrderDTO(o, now))
-            .collect(Collectors.toList());
+        int remaining = limit;
+        while (remaining > 0) {
+            int size = Math.min(remaining, PAGE_SIZE);
+            List<OrderListRow> rows = orderRepository.findPageAfter(filter.statuses(), filter.from(), filter.to(),
+                afterArrival, afterOrderId, Limit.of(size));
+            for (OrderListRow row : rows) sink.accept(toOrderDTO(row, now));
+            if (rows.size() < size) return;
+            OrderListRow last = rows.get(rows.size() - 1);
+            afterArrival = last.arrivalTime();
+            afterOrderId = last.id();
+            remaining -= size;
+        }
+    }
+
+    private List<OrderDTO> retainedTestOrders(OrderFilter filter, Instant afterArrival, long afterId, int limit) {
+        synchronized (accumulatedTestOrders) {
+            if (accumulatedTestOrders.isEmpty()) return null;
+            return accumulatedTestOrders.stream()
+                .filter(o -> filter.matches(o.getStatus(), o.getArrivalTime()))
+                .filter(o -> o.getArrivalTime().isAfter(afterArrival)
+                    || (o.getArrivalTime().equals(afterArrival) && o.getId() > afterId))
+                .sorted(BY_ARRIVAL)
+                .limit(limit)
+                .toList();
+        }
     }
 
-    public List<BaristaDTO> getBaristas() {
+    /**
+     * One query for the baristas; what each is preparing comes from the store's scheduling index,
+     * which already keeps preparing orders grouped by barista.
+     */
+    public List<BaristaDTO> getBaristas(long storeId) {
         Instant now = Instant.now();
-        List<Barista> baristas = baristaRepository.findAllByOrderByIdAsc();
-        List<BaristaDTO> result = new ArrayList<>();
+        List<Barista> baristas = baristaRepository.findByStoreIdOrderByIdAsc(storeId);
+        if (baristas.isEmpty()) return List.of();
+        SchedulingIndex schedulingIndex = schedulingPartitions.forStore(storeId);
+        schedulingIndex.ensureLoaded();
+        List<BaristaDTO> result = new ArrayList<>(baristas.size());
         for (Barista b : baristas) {
-            List<Order> current = orderRepository.findByStatus(OrderStatus.PREPARING).stream()
-                .filter(o -> b.equals(o.getBarista()))
-                .collect(Collectors.toList());
-            BaristaDTO dto = BaristaDTO.builder()
-                .id(b.getId())
-                .name(b.getName())
-                .currentWorkloadMinutes(b.getCurrentWorkloadMinutes())
-                .workloadRatio(b.getWorkloadRatio())
-                .available(b.isAvailable())
-                .currentOrders(current.stream().map(o -> toOrderDTO(o, now)).collect(Collectors.toList()))
-                .build();
+            List<OrderDTO> current = new ArrayList<>();
+            for (Order o : schedulingIndex.preparingBy(b.getId())) {
+                OrderDTO dto = toOrderUpdateDTO(o, now);
+                dto.setBaristaName(b.getName());
+                dto.setEstimatedWaitMinutes(queueEtaEngine.estimateWaitMinutes(o, now));
+                current.add(dto);
+            }
+            BaristaDTO dto = toBaristaUpdateDTO(b, schedulingIndex, now);
+            dto.setCurrentOrders(current);
             result.add(dto);
         }
         return result;
     }
 
+    /**
+     * The barista without what they are preparing. Available means the scheduler would give them
+     * another order now: a free slot and nothing else needing their hands.
+     */
+    public BaristaDTO toBaristaUpdateDTO(Barista b, Instant now) {
+        return toBaristaUpdateDTO(b, schedulingPartitions.find(b.getStoreId()).orElse(null), now);
+    }
+
+    private static BaristaDTO toBaristaUpdateDTO(Barista b, SchedulingIndex schedulingIndex, Instant now) {
+        return BaristaDTO.builder()
+            .id(b.getId())
+            .name(b.getName())
+            .currentWorkloadMinutes(b.getCurrentWorkloadMinutes())
+            .workloadRatio(b.getWorkloadRatio())
+            .available(schedulingIndex == null || schedulingIndex.canStartOrder(b.getId(), b.getSlots(), now))
+            .build();
+    }
+
     public OrderDTO toOrderDTO(Order o, Instant now) {
         return toOrderDTO(o, now, o.getId());
     }
 
     private OrderDTO toOrderDTO(Order o, Instant now, long idOverride) {
-        long wait = o.getWaitTimeMinutes(now);
-        long eta = estimateWaitTime(o, now);
+        OrderDTO dto = toOrderUpdateDTO(o, now, idOverride);
+        dto.setBaristaName(o.getBarista() != null ? o.getBarista().getName() : null);
+        dto.setEstimatedWaitMinutes(queueEtaEngine.estimateWaitMinutes(o, now));
+        return dto;
+    }
+
 
+    private OrderDTO toOrderDTO(OrderListRow row, Instant now) {
+        return OrderDTO.builder()
+            .id(row.id())
+            .customerName(row.customerName())
+            .drinkType(row.drinkType())
+            .loyaltyStatus(row.loyaltyStatus())
+            .status(row.status())
+            .arrivalTime(row.arrivalTime())
+            .assignmentTime(row.assignmentTime())
+            .completionTime(row.completionTime())
+            .baristaId(row.baristaId())
+            .baristaName(row.baristaName())
+            .priorityScore(row.priorityScore())
+            .assignmentReason(row.assignmentReason())
+            .prepTimeMinutes(row.drinkType().getPrepTimeMinutes())
+            .waitTimeMinutes(Order.waitTimeMinutes(row.arrivalTime(), row.assignmentTime(), now))
+            .estimatedWaitMinutes(queueEtaEngine.estimateWaitMinutes(row.storeId(), row.id(), row.status(),
+                row.drinkType(), row.assignmentTime(), now))
+            .build();
+    }
+
+
+    /**
+     * Pushed to live clients after a change. Leaves out the barista name, which may sit behind a
+     * detached lazy proxy, and the ETA, which needs a walk of the whole queue; clients fill both in.
+     */
+    public OrderDTO toOrderUpdateDTO(Order o, Instant now) {
+        return toOrderUpdateDTO(o, now, o.getId());
+    }
+
+    private OrderDTO toOrderUpdateDTO(Order o, Instant now, long idOverride) {
         return OrderDTO.builder()
             .id(idOverride)
             .customerName(o.getCustomerName())
@@ -96,29 +228,10 @@ public class OrderService {
             .assignmentTime(o.getAssignmentTime())
             .completionTime(o.getCompletionTime())
             .baristaId(o.getBarista() != null ? o.getBarista().getId() : null)
-            .baristaName(o.getBarista() != null ? o.getBarista().getName() : null)
             .priorityScore(o.getPriorityScore())
             .assignmentReason(o.getAssignmentReason())
             .prepTimeMinutes(o.getPrepTimeMinutes())
-            .waitTimeMinutes(wait)
-            .estimatedWaitMinutes(eta)
+            .waitTimeMinutes(o.getWaitTimeMinutes(now))
             .build();
     }
-
-
-    private long estimateWaitTime(Order o, Instant now) {
-        if (o.getStatus() == OrderStatus.COMPLETED) return 0;
-        if (o.getStatus() == OrderStatus.PREPARING) {
-            if (o.getAssignmentTime() == null) return o.getPrepTimeMinutes();
-            long elapsed = (now.toEpochMilli() - o.getAssignmentTime().toEpochMilli()) / 60_000;
-            return Math.max(0, o.getPrepTimeMinutes() - elapsed);
-        }
-
-        List<Order> queue = priorityService.getPrioritizedQueue(now);
-        int pos = queue.indexOf(o);
-        if (pos < 0) return o.getPrepTimeMinutes();
-        int slots = (pos / 3) + 1;
-        int avgPrep = 3;
-        return slots * avgPrep;
-    }
 }
@@ -0,0 +1,227 @@
+package com.coffeeshop.service;
+
+import com.coffeeshop.event.OrderChangedEvent;
+import com.coffeeshop.model.Barista;
+import com.coffeeshop.model.DrinkType;
+import com.coffeeshop.model.Order;
+import com.coffeeshop.model.OrderStatus;
+import com.coffeeshop.repository.BaristaRepository;
+import com.coffeeshop.scheduling.PrepTimeModel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * Minutes until each order is ready, worked out for a whole store queue in one pass and cached
+ * until the store's {@link SchedulingIndex} next changes (or a minute has passed). The default
+ * {@code schedule} model hands queued orders, in priority order, to whichever barista frees up
+ * first, starting from each barista's remaining workload. {@code coffeeshop.eta.model=mgc} uses an
+ * M/G/c approximation instead, calibrated from the prep times the store has actually taken, once
+ * {@code coffeeshop.eta.min-samples} orders have finished there.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueueEtaEngine {
+
+    private static final long MINUTE_MILLIS = 60_000;
+
+    private final BaristaRepository baristaRepository;
+    private final SchedulingPartitions schedulingPartitions;
+    private final PrepTimeModel prepTimeModel;
+
+    @Value("${coffeeshop.eta.model:schedule}")
+    private String model;
+
+    @Value("${coffeeshop.eta.min-samples:20}")
+    private int minSamples;
+
+    private final ConcurrentMap<Long, Estimate> estimates = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, PrepTimeStats> prepTimes = new ConcurrentHashMap<>();
+
+    public long estimateWaitMinutes(Order o, Instant now) {
+        return estimateWaitMinutes(o.getStoreId(), o.getId(), o.getStatus(), o.getDrinkType(), o.getAssignmentTime(), now);
+    }
+
+    public long estimateWaitMinutes(long storeId, long orderId, OrderStatus status, DrinkType drinkType,
+                                    Instant assignmentTime, Instant now) {
+        int prep = drinkType.getPrepTimeMinutes();
+        switch (status) {
+            case COMPLETED:
+                return 0;
+            case PREPARING:
+                Instant dueAt = schedulingPartitions.find(storeId).map(index -> index.dueAt(orderId)).orElse(null);
+                if (dueAt != null) return ceilMinutes(dueAt.toEpochMilli() - now.toEpochMilli());
+                if (assignmentTime == null) return prep;
+                long elapsed = (now.toEpochMilli() - assignmentTime.toEpochMilli()) / MINUTE_MILLIS;
+                return Math.max(0, prep - elapsed);
+            case QUEUED:
+                Estimate estimate = current(storeId, now);
+                Long readyAt = estimate.readyAt().get(orderId);
+                if (readyAt == null) readyAt = estimate.nextStartAt() + prep * MINUTE_MILLIS;
+                return Math.max(prep, ceilMinutes(readyAt - now.toEpochMilli()));
+            default:
+                return prep;
+        }
+    }
+
+    /**
+     * Minutes until each queued order of the store is ready, by order id.
+     */
+    public Map<Long, Long> estimateQueuedMinutes(long storeId, Instant now) {
+        Map<Long, Long> minutes = new HashMap<>();
+        SchedulingIndex schedulingIndex = schedulingPartitions.find(storeId).orElse(null);
+        if (schedulingIndex == null) return minutes;
+        for (Order o : schedulingIndex.prioritizedQueue()) {
+            minutes.put(o.getId(), estimateWaitMinutes(o, now));
+        }
+        return minutes;
+    }
+
+    /** A batch's orders finish together; each is counted for its share of the batch's time. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (event.change() != OrderChangedEvent.Change.COMPLETED) return;
+        Order o = event.order();
+        if (o.getAssignmentTime() == null || o.getCompletionTime() == null) return;
+        double batchMinutes = Duration.between(o.getAssignmentTime(), o.getCompletionTime()).toMillis() / (double) MINUTE_MILLIS;
+        double minutes = batchMinutes / o.getBatchSize();
+        prepTimes.computeIfAbsent(o.getStoreId(), id -> new PrepTimeStats()).record(o.getDrinkType(), minutes);
+    }
+
+    private Estimate current(long storeId, Instant now) {
+        SchedulingIndex schedulingIndex = schedulingPartitions.forStore(storeId);
+        Estimate estimate = estimates.get(storeId);
+        if (estimate != null && estimate.version() == schedulingIndex.version()
+            && Math.abs(now.toEpochMilli() - estimate.computedAt()) < MINUTE_MILLIS) {
+            return estimate;
+        }
+        List<Barista> baristas = baristaRepository.findByStoreIdOrderByIdAsc(storeId);
+        List<Long> baristaIds = baristas.stream().map(Barista::getId).toList();
+        synchronized (schedulingIndex) {
+            schedulingIndex.ensureLoaded();
+            PrepTimeStats stats = prepTimes.get(storeId);
+            boolean mgc = "mgc".equalsIgnoreCase(model) && stats != null && stats.count() >= minSamples;
+            estimate = mgc ? queueingModel(schedulingIndex, baristaIds, stats, now) : schedule(schedulingIndex, baristas, now);
+        }
+        estimates.put(storeId, estimate);
+        return estimate;
+    }
+
+    /**
+     * A barista with several slots starts the next order once their hands are free and a slot
+     * is, so each order holds them up for the longer of its hands-on time and its share of the
+     * slots; a busy barista's current work is likewise spread over their slots.
+     */
+    private Estimate schedule(SchedulingIndex schedulingIndex, List<Barista> baristas, Instant now) {
+        long nowMillis = now.toEpochMilli();
+        PriorityQueue<FreeAt> freeAt = new PriorityQueue<>(Comparator.comparingLong(FreeAt::millis));
+        Map<Long, Integer> slots = new HashMap<>();
+        for (Barista b : baristas) {
+            long busy = schedulingIndex.canStartOrder(b.getId(), b.getSlots(), now) ? 0
+                : (long) schedulingIndex.remainingWorkMinutes(b.getId(), now) * MINUTE_MILLIS / b.getSlots();
+            freeAt.add(new FreeAt(nowMillis + busy, b.getId()));
+            slots.put(b.getId(), b.getSlots());
+        }
+        Map<Long, Long> readyAt = new HashMap<>();
+        if (!freeAt.isEmpty()) {
+            for (Order o : schedulingIndex.prioritizedQueue()) {
+                FreeAt next = freeAt.poll();
+                double prep = prepTimeModel.estimateMinutes(next.baristaId(), o.getDrinkType());
+                double heldUp = Math.max(prep * o.getDrinkType().handsOnFraction(), prep / slots.get(next.baristaId()));
+                long ready = next.millis() + Math.round(prep * MINUTE_MILLIS);
+                freeAt.add(new FreeAt(next.millis() + Math.round(heldUp * MINUTE_MILLIS), next.baristaId()));
+                readyAt.put(o.getId(), ready);
+            }
+        }
+        long nextStartAt = freeAt.isEmpty() ? nowMillis : freeAt.peek().millis();
+        return new Estimate(schedulingIndex.version(), nowMillis, readyAt, nextStartAt);
+    }
+
+    /**
+     * With k orders ahead and every barista busy, an order starts after the first barista frees
+     * up, on average S(1 + Cs²)/(2c) for c baristas with mean prep time S and squared coefficient
+     * of variation Cs², and then k more orders have to leave at a rate of c/S.
+     */
+    private Estimate queueingModel(SchedulingIndex schedulingIndex, List<Long> baristaIds, PrepTimeStats stats, Instant now) {
+        long nowMillis = now.toEpochMilli();
+        int c = baristaIds.size();
+        int idle = 0;
+        for (long id : baristaIds) {
+            if (schedulingIndex.remainingWorkMinutes(id, now) <= 0) idle++;
+        }
+        double mean = stats.mean();
+        double residual = c == 0 ? 0 : mean * (1 + stats.squaredCoefficientOfVariation()) / (2 * c);
+        Map<Long, Long> readyAt = new HashMap<>();
+        int ahead = 0;
+        for (Order o : schedulingIndex.prioritizedQueue()) {
+            double start = startMinutes(ahead++, idle, c, mean, residual);
+            readyAt.put(o.getId(), nowMillis + Math.round((start + stats.mean(o.getDrinkType())) * MINUTE_MILLIS));
+        }
+        long nextStartAt = nowMillis + Math.round(startMinutes(ahead, idle, c, mean, residual) * MINUTE_MILLIS);
+        return new Estimate(schedulingIndex.version(), nowMillis, readyAt, nextStartAt);
+    }
+
+    private static double startMinutes(int ahead, int idle, int c, double mean, double residual) {
+        if (c == 0 || ahead < idle) return 0;
+        return residual + (ahead - idle) * mean / c;
+    }
+
+    private static long ceilMinutes(long millis) {
+        return Math.max(0, Math.floorDiv(millis + MINUTE_MILLIS - 1, MINUTE_MILLIS));
+    }
+
+    private record Estimate(long version, long computedAt, Map<Long, Long> readyAt, long nextStartAt) {}
+
+    private record FreeAt(long millis, long baristaId) {}
+
+
+    /** Running mean and variance of observed prep minutes (Welford), overall and per drink. */
+    private static final class PrepTimeStats {
+
+        private long count;
+        private double mean;
+        private double m2;
+        private final Map<DrinkType, double[]> byDrink = new EnumMap<>(DrinkType.class);
+
+        synchronized void record(DrinkType drinkType, double minutes) {
+            count++;
+            double delta = minutes - mean;
+            mean += delta / count;
+            m2 += delta * (minutes - mean);
+            double[] drink = byDrink.computeIfAbsent(drinkType, d -> new double[2]);
+            drink[0]++;
+            drink[1] += minutes;
+        }
+
+        synchronized long count() {
+            return count;
+        }
+
+        synchronized double mean() {
+            return mean;
+        }
+
+        synchronized double mean(DrinkType drinkType) {
+            double[] drink = byDrink.get(drinkType);
+            return drink == null ? drinkType.getPrepTimeMinutes() : drink[1] / drink[0];
+        }
+
+        synchronized double squaredCoefficientOfVariation() {
+            if (count < 2 || mean <= 0) return 0;
+            return m2 / (count - 1) / (mean * mean);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.coffeeshop.service;
+
+import com.coffeeshop.dto.QueueSnapshotDTO;
+import com.coffeeshop.event.BaristaChangedEvent;
+import com.coffeeshop.event.OrderChangedEvent;
+import com.coffeeshop.event.SchedulerTickEvent;
+import com.coffeeshop.model.Barista;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Pushes queue changes to dashboard clients over SSE. A new client gets one snapshot of its store,
+ * then only that store's orders and baristas that changed, once they are committed. The work per
+ * change is the same however many dashboards are open; metrics are recomputed at most once per tick.
+ *
+ * <p>Changes are published from inside a store's tick, so they are only queued here: each client
+ * has its own outbox, written out on a small pool of {@code coffeeshop.sse.delivery-threads}
+ * threads. A client that falls {@code coffeeshop.sse.max-pending} messages behind is dropped and
+ * reconnects to a fresh snapshot.
+ */
+@Service
+@Slf4j
+public class QueueEventBroadcaster implements DisposableBean {
+
+    static final String SNAPSHOT = "snapshot";
+    static final String ORDER = "order";
+    static final String BARISTA = "barista";
+    static final String METRICS = "metrics";
+    static final String TICK = "tick";
+
+    private final OrderService orderService;
+    private final MetricsService metricsService;
+    private final QueueEtaEngine queueEtaEngine;
+    private final Executor deliveryExecutor;
+    private final int maxPending;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private volatile boolean metricsStale = true;
+
+    @Autowired
+    public QueueEventBroadcaster(OrderService orderService, MetricsService metricsService, QueueEtaEngine queueEtaEngine,
+                                 @Value("${coffeeshop.sse.delivery-threads:2}") int threads,
+                                 @Value("${coffeeshop.sse.max-pending:256}") int maxPending) {
+        this(orderService, metricsService, queueEtaEngine, newDeliveryPool(threads), maxPending);
+    }
+
+    QueueEventBroadcaster(OrderService orderService, MetricsService metricsService, QueueEtaEngine queueEtaEngine,
+                          Executor deliveryExecutor, int maxPending) {
+        this.orderService = orderService;
+        this.metricsService = metricsService;
+        this.queueEtaEngine = queueEtaEngine;
+        this.deliveryExecutor = deliveryExecutor;
+        this.maxPending = maxPending;
+    }
+
+    public SseEmitter subscribe(long storeId) {
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber subscriber = new Subscriber(emitter, storeId, deliveryExecutor, maxPending);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        QueueSnapshotDTO snapshot = QueueSnapshotDTO.builder()
+            .queue(orderService.getQueue(storeId))
+            .baristas(orderService.getBaristas(storeId))
+            .metrics(metricsService.computeCurrentMetrics())
+            .now(Instant.now())
+            .build();
+        subscriber.start(snapshot);
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (event.change() != OrderChangedEvent.Change.RESCORED) metricsStale = true;
+        if (subscribers.isEmpty()) return;
+        broadcast(event.order().getStoreId(), ORDER, orderService.toOrderUpdateDTO(event.order(), Instant.now()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBaristaChanged(BaristaChangedEvent event) {
+        if (subscribers.isEmpty()) return;
+        Barista b = event.barista();
+        broadcast(b.getStoreId(), BARISTA, orderService.toBaristaUpdateDTO(b, Instant.now()));
+    }
+
+    /**
+     * A tick carries the store's queued orders' ETAs, as any change to the queue moves them.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSchedulerTick(SchedulerTickEvent event) {
+        if (subscribers.isEmpty()) return;
+        if (metricsStale) {
+            metricsStale = false;
+            broadcast(METRICS, metricsService.computeCurrentMetrics());
+        }
+        if (subscribers.stream().noneMatch(s -> s.storeId == event.storeId())) return;
+        broadcast(event.storeId(), TICK, Map.of("now", event.now(),
+            "etas", queueEtaEngine.estimateQueuedMinutes(event.storeId(), event.now())));
+    }
+
+    private void broadcast(String name, Object data) {
+        for (Subscriber s : subscribers) {
+            if (!s.deliver(name, data)) subscribers.remove(s);
+        }
+    }
+
+    private void broadcast(long storeId, String name, Object data) {
+        for (Subscriber s : subscribers) {
+            if (s.storeId != storeId) continue;
+            if (!s.deliver(name, data)) subscribers.remove(s);
+        }
+    }
+
+
+    @Override
+    public void destroy() {
+        if (deliveryExecutor instanceof ExecutorService pool) pool.shutdown();
+    }
+
+    private static ExecutorService newDeliveryPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "sse-delivery-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+
+    /**
+     * Messages published before the snapshot is taken wait in the outbox behind it. At most one
+     * drain per subscriber runs at a time, so its messages go out in order.
+     */
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final long storeId;
+        private final Executor executor;
+        private final int maxPending;
+        private final Deque<Message> outbox = new ArrayDeque<>();
+        private boolean started = false;
+        private boolean draining = false;
+        private boolean closed = false;
+
+        Subscriber(SseEmitter emitter, long storeId, Executor executor, int maxPending) {
+            this.emitter = emitter;
+            this.storeId = storeId;
+            this.executor = executor;
+            this.maxPending = maxPending;
+        }
+
+        synchronized void start(QueueSnapshotDTO snapshot) {
+            if (closed) return;
+            outbox.addFirst(new Message(SNAPSHOT, snapshot));
+            started = true;
+            scheduleDrain();
+        }
+
+        synchronized boolean deliver(String name, Object data) {
+            if (closed) return false;
+            if (outbox.size() >= maxPending) {
+                log.debug("Dropping SSE subscriber for store {}: {} messages behind", storeId, outbox.size());
+                close();
+                return false;
+            }
+            outbox.addLast(new Message(name, data));
+            if (started) scheduleDrain();
+            return true;
+        }
+
+        private void scheduleDrain() {
+            if (draining) return;
+            draining = true;
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining = false;
+                close();
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Message m;
+                synchronized (this) {
+                    m = closed ? null : outbox.pollFirst();
+                    if (m == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                if (!send(m.name(), m.data())) {
+                    synchronized (this) {
+                        draining = false;
+                        close();
+                    }
+                    return;
+                }
+            }
+        }
+
+        private boolean send(String name, Object data) {
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data));
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping SSE subscriber: {}", e.getMessage());
+                return false;
+            }
+        }
+
+        private void close() {
+            if (closed) return;
+            closed = true;
+            outbox.clear();
+            try {
+                executor.execute(emitter::complete);
+            } catch (RejectedExecutionException e) {
+                emitter.complete();
+            }
+        }
+    }
+
+    private record Message(String name, Object data) {}
+}
@@ -1,19 +1,29 @@
 package com.coffeeshop.service;
 
+import com.coffeeshop.event.BaristaChangedEvent;
+import com.coffeeshop.event.SchedulerTickEvent;
 import com.coffeeshop.model.*;
 import com.coffeeshop.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 @Service
@@ -25,144 +35,204 @@ public class SchedulerService {
     private final BaristaRepository baristaRepository;
     private final AssignmentRepository assignmentRepository;
     private final PriorityService priorityService;
-    private final MetricsService metricsService;
+    private final SchedulingPartitions schedulingPartitions;
+    private final OrderIntake orderIntake;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionOperations transactions;
 
     @Value("${coffeeshop.max-wait-minutes:10}")
     private int maxWaitMinutes;
 
-    @Value("${coffeeshop.emergency-threshold-minutes:9.5}")
-    private double emergencyThresholdMinutes;
-
     private static final double OVERLOADED_RATIO = 1.2;
     private static final double UNDERUTILIZED_RATIO = 0.8;
 
+    private final Set<Long> ticking = ConcurrentHashMap.newKeySet();
+
 
+    /**
+     * Safety net behind {@link SchedulerWakeups}, which ticks a store as soon as something it waits
+     * for happens; this catches anything the wake-ups cannot see, such as baristas added directly in
+     * the database.
+     */
     @Scheduled(fixedRateString = "${coffeeshop.scheduler.interval-seconds:30}000")
-    @Transactional
     public void runScheduler() {
-        processTick(Instant.now());
+        for (long storeId : activeStores()) {
+            if (!tickAsync(storeId)) {
+                log.debug("Store {} is still ticking, skipping this round", storeId);
+            }
+        }
+    }
+
+    /**
+     * Hands the store's tick to the partition pool without waiting for it.
+     *
+     * @return {@code false}, without queueing anything, if the store's previous tick is still running
+     */
+    public boolean tickAsync(long storeId) {
+        if (!ticking.add(storeId)) return false;
+        schedulingPartitions.submit(() -> processTick(storeId, Instant.now())).whenComplete((ignored, e) -> {
+            ticking.remove(storeId);
+            if (e != null) log.error("Scheduler tick failed for store {}", storeId, e);
+        });
+        return true;
     }
 
 
-    @Transactional
     public void processTick(Instant now) {
-        advanceSimulation(now);
-        updateBaristaWorkloads(now);
-        List<Order> queue = priorityService.getPrioritizedQueue(now);
-        List<Barista> baristas = baristaRepository.findAllByOrderByIdAsc();
+        List<CompletableFuture<Void>> ticks = new ArrayList<>();
+        for (long storeId : activeStores()) {
+            ticks.add(schedulingPartitions.submit(() -> processTick(storeId, now)));
+        }
+        try {
+            CompletableFuture.allOf(ticks.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
 
-        for (Barista b : baristas) {
-            if (isBaristaAvailable(b, now)) {
-                Order next = selectNextOrder(queue, b, now);
-                if (next != null) {
-                    assignOrder(next, b, now);
-                    queue.remove(next);
+    public void processTick(long storeId, Instant now) {
+        SchedulingIndex schedulingIndex = schedulingPartitions.forStore(storeId);
+        orderIntake.drainInto(schedulingIndex);
+        transactions.executeWithoutResult(status -> {
+            synchronized (schedulingIndex) {
+                try {
+                    runTick(schedulingIndex, now);
+                } catch (RuntimeException e) {
+                    schedulingIndex.invalidate();
+                    throw e;
                 }
             }
+        });
+    }
+
+    private Collection<Long> activeStores() {
+        Set<Long> stores = new TreeSet<>(schedulingPartitions.storeIds());
+        stores.addAll(baristaRepository.findStoreIds());
+        for (long storeId : orderIntake.storeIds()) {
+            if (schedulingPartitions.isKnown(storeId)) stores.add(storeId);
         }
+        return stores;
+    }
 
-        for (Order o : new ArrayList<>(queue)) {
-            if (priorityService.shouldForceAssign(o, now)) {
-                Barista avail = findAvailableBarista(now);
-                if (avail != null) {
-                    assignOrder(o, avail, now);
-                    queue.remove(o);
-                }
+    private void runTick(SchedulingIndex schedulingIndex, Instant now) {
+        long storeId = schedulingIndex.storeId();
+        schedulingIndex.ensureLoaded();
+        advanceSimulation(storeId, now);
+        List<Barista> baristas = updateBaristaWorkloads(schedulingIndex, now);
+        priorityService.recalculateQueue(storeId, now);
+
+        List<Barista> free = baristas.stream().filter(b -> isBaristaAvailable(schedulingIndex, b, now)).toList();
+        List<Order> next = selectOrders(schedulingIndex, free, now);
+        for (int i = 0; i < free.size(); i++) {
+            if (next.get(i) != null) {
+                assignBatch(schedulingIndex, next.get(i), free.get(i), next, now);
             }
         }
 
-        for (Order o : orderRepository.findByStatusOrderByArrivalTimeAsc(OrderStatus.QUEUED)) {
-            if (o.getWaitTimeMinutes(now) >= emergencyThresholdMinutes && !o.isAlertSent()) {
+        schedulingIndex.applyFairnessPenalties(now);
+
+        Order oldest;
+        Barista avail;
+        boolean forced = false;
+        while ((oldest = schedulingIndex.oldestQueued()) != null && priorityService.shouldForceAssign(oldest, now)
+                && (avail = firstAvailable(schedulingIndex, baristas, now)) != null) {
+            assignOrder(oldest, avail, now);
+            forced = true;
+        }
+        if (forced) schedulingIndex.applyFairnessPenalties(now);
+
+        for (Order o : schedulingIndex.queuedByArrival()) {
+            if (!priorityService.isEmergency(o, now)) break;
+            if (!o.isAlertSent()) {
                 o.setAlertSent(true);
-                orderRepository.save(o);
+                schedulingIndex.markDirty(o);
                 log.warn("ALERT: Order {} (customer {}) has waited {}/{} min - approaching timeout!",
                     o.getId(), o.getCustomerName(), o.getWaitTimeMinutes(now), maxWaitMinutes);
             }
         }
+
+        int idle = (int) baristas.stream().filter(b -> isBaristaAvailable(schedulingIndex, b, now)).count();
+        schedulingIndex.recordLoad(baristas.size(), idle);
+        schedulingIndex.flush();
+        eventPublisher.publishEvent(new SchedulerTickEvent(storeId, now));
     }
 
-    private void updateBaristaWorkloads(Instant now) {
-        List<Barista> baristas = baristaRepository.findAllByOrderByIdAsc();
+    private List<Barista> updateBaristaWorkloads(SchedulingIndex schedulingIndex, Instant now) {
+        List<Barista> baristas = baristaRepository.findByStoreIdOrderByIdAsc(schedulingIndex.storeId());
+        double[] previousWork = new double[baristas.size()];
+        double[] previousRatio = new double[baristas.size()];
+        for (int i = 0; i < baristas.size(); i++) {
+            previousWork[i] = baristas.get(i).getCurrentWorkloadMinutes();
+            previousRatio[i] = baristas.get(i).getWorkloadRatio();
+        }
         double totalWork = 0;
         for (Barista b : baristas) {
-            double work = computeCurrentWorkload(b, now);
+            double work = schedulingIndex.remainingWorkMinutes(b.getId(), now);
             b.setCurrentWorkloadMinutes(work);
             totalWork += work;
-            baristaRepository.save(b);
         }
         double avgWork = baristas.isEmpty() ? 0 : totalWork / baristas.size();
         for (Barista b : baristas) {
             double ratio = avgWork > 0 ? b.getCurrentWorkloadMinutes() / avgWork : 1.0;
             b.setWorkloadRatio(ratio);
-            baristaRepository.save(b);
         }
-    }
-
-    private double computeCurrentWorkload(Barista b, Instant now) {
-        List<Order> preparing = orderRepository.findByStatus(OrderStatus.PREPARING).stream()
-            .filter(o -> b.equals(o.getBarista()))
-            .collect(Collectors.toList());
-        double work = 0;
-        for (Order o : preparing) {
-            Instant start = o.getAssignmentTime() != null ? o.getAssignmentTime() : now;
-            long elapsed = (now.toEpochMilli() - start.toEpochMilli()) / 60_000;
-            int totalPrep = o.getPrepTimeMinutes();
-            long remaining = Math.max(0, totalPrep - elapsed);
-            work += remaining;
+        for (int i = 0; i < baristas.size(); i++) {
+            Barista b = baristas.get(i);
+            if (b.getCurrentWorkloadMinutes() != previousWork[i] || b.getWorkloadRatio() != previousRatio[i]) {
+                eventPublisher.publishEvent(new BaristaChangedEvent(b));
+            }
         }
-        return work;
+        baristaRepository.saveAll(baristas);
+        return baristas;
     }
 
-    private boolean isBaristaAvailable(Barista b, Instant now) {
-        return b.getCurrentWorkloadMinutes() <= 0;
+    private boolean isBaristaAvailable(SchedulingIndex schedulingIndex, Barista b, Instant now) {
+        return schedulingIndex.canStartOrder(b.getId(), b.getSlots(), now);
     }
 
-    private Barista findAvailableBarista(Instant now) {
-        return baristaRepository.findAllByOrderByIdAsc().stream()
-            .filter(b -> isBaristaAvailable(b, now))
-            .findFirst()
-            .orElse(null);
+    private Barista firstAvailable(SchedulingIndex schedulingIndex, List<Barista> baristas, Instant now) {
+        for (Barista b : baristas) {
+            if (isBaristaAvailable(schedulingIndex, b, now)) return b;
+        }
+        return null;
     }
 
 
-    private Order selectNextOrder(List<Order> queue, Barista barista, Instant now) {
-        if (queue.isEmpty()) return null;
-
-        Order emergency = queue.stream()
-            .filter(o -> priorityService.shouldForceAssign(o, now))
-            .findFirst()
-            .orElse(null);
-        if (emergency != null) return emergency;
+    /**
+     * One matching over every free barista at once rather than each barista taking the best order
+     * left in turn, so the result does not depend on which barista happens to be asked first.
+     */
+    private List<Order> selectOrders(SchedulingIndex schedulingIndex, List<Barista> free, Instant now) {
+        long[] ids = free.stream().mapToLong(Barista::getId).toArray();
+        double[] ratios = free.stream().mapToDouble(Barista::getWorkloadRatio).toArray();
+        return schedulingIndex.selectBatch(ids, ratios, now);
+    }
 
-        double ratio = barista.getWorkloadRatio();
-        if (ratio > OVERLOADED_RATIO) {
-            return queue.stream()
-                .min(Comparator.comparingInt(Order::getPrepTimeMinutes)
-                    .thenComparing((a, b) -> Double.compare(
-                        (b.getPriorityScore() != null ? b.getPriorityScore() : 0),
-                        (a.getPriorityScore() != null ? a.getPriorityScore() : 0))))
-                .orElse(queue.get(0));
-        } else if (ratio < UNDERUTILIZED_RATIO) {
-            return queue.stream()
-                .max(Comparator.comparing(Order::getPriorityScore, Comparator.nullsLast(Comparator.naturalOrder()))
-                    .thenComparing(Order::getArrivalTime))
-                .orElse(queue.get(0));
+    /**
+     * Hands the barista the order together with any queued orders of the same drink worth making
+     * alongside it; {@code reserved} are the orders other baristas are about to take.
+     */
+    private void assignBatch(SchedulingIndex schedulingIndex, Order order, Barista barista, List<Order> reserved,
+                             Instant now) {
+        List<Order> batch = schedulingIndex.batchFor(order, barista.getId(), reserved);
+        for (Order o : batch) {
+            assignOrder(o, barista, now, batch.size());
         }
-
-        return queue.stream()
-            .max(Comparator.comparing(Order::getPriorityScore, Comparator.nullsLast(Comparator.naturalOrder()))
-                .thenComparing(Order::getArrivalTime))
-            .orElse(queue.get(0));
     }
 
     @Transactional
     public void assignOrder(Order order, Barista barista, Instant now) {
+        assignOrder(order, barista, now, 1);
+    }
+
+    private void assignOrder(Order order, Barista barista, Instant now, int batchSize) {
+        order.setBatchSize(batchSize);
         String reason = buildAssignmentReason(order, barista, now);
         order.setStatus(OrderStatus.PREPARING);
         order.setBarista(barista);
         order.setAssignmentTime(now);
         order.setAssignmentReason(reason);
-        orderRepository.save(order);
 
         Assignment a = Assignment.builder()
             .order(order)
@@ -172,16 +242,7 @@ public class SchedulerService {
             .build();
         assignmentRepository.save(a);
 
-        List<Order> earlier = orderRepository.findByStatusOrderByArrivalTimeAsc(OrderStatus.QUEUED).stream()
-            .filter(o -> o.getArrivalTime().isBefore(order.getArrivalTime()))
-            .collect(Collectors.toList());
-        for (Order o : earlier) {
-            o.setLaterArrivalsServedFirst(o.getLaterArrivalsServedFirst() + 1);
-            if (o.getLaterArrivalsServedFirst() > 3) {
-                o.setFairnessPenaltyApplied(true);
-            }
-            orderRepository.save(o);
-        }
+        schedulingPartitions.forOrder(order).markAssigned(order);
 
         log.info("SCHEDULING: Order {} assigned to barista {} - Reason: {}", order.getId(), barista.getName(), reason);
     }
@@ -202,36 +263,57 @@ public class SchedulerService {
             sb.append("Complex order to utilize underused barista. ");
         }
         sb.append(String.format("Priority=%.1f, Wait=%d min, Drink=%s.", order.getPriorityScore(), wait, order.getDrinkType()));
+        if (order.getBatchSize() > 1) {
+            sb.append(String.format(" Batch of %d.", order.getBatchSize()));
+        }
         return sb.toString();
     }
 
 
+    /**
+     * Completes the orders whose prep time is up. Due times go into the index's completion heap at
+     * assignment, so this only touches orders that actually finish, and {@link SchedulerWakeups}
+     * wakes the store when the next one is due.
+     */
     @Transactional
-    public void advanceSimulation(Instant now) {
-        List<Order> preparing = orderRepository.findByStatus(OrderStatus.PREPARING);
-        for (Order o : preparing) {
-            if (o.getAssignmentTime() == null) continue;
-            long elapsed = (now.toEpochMilli() - o.getAssignmentTime().toEpochMilli()) / 60_000;
-            if (elapsed >= o.getPrepTimeMinutes()) {
-                completeOrder(o.getId(), now);
-            }
-        }
+    public void advanceSimulation(long storeId, Instant now) {
+        completeOrders(schedulingPartitions.forStore(storeId).pollDueCompletions(now));
     }
 
     @Transactional
     public void completeOrder(Long orderId, Instant completedAt) {
-        Order order = orderRepository.findById(orderId).orElse(null);
-        if (order == null || order.getStatus() != OrderStatus.PREPARING) return;
-
-        order.setStatus(OrderStatus.COMPLETED);
-        order.setCompletionTime(completedAt);
-        orderRepository.save(order);
+        Order order = null;
+        for (SchedulingIndex schedulingIndex : schedulingPartitions.all()) {
+            order = schedulingIndex.getPreparing(orderId);
+            if (order != null) break;
+        }
+        if (order == null) order = orderRepository.findById(orderId).orElse(null);
+        if (order == null) return;
+        completeOrders(List.of(new SchedulingIndex.Completion(completedAt, order)));
+    }
 
-        assignmentRepository.findByOrder(order).ifPresent(a -> {
-            a.setCompletedAt(completedAt);
-            assignmentRepository.save(a);
-        });
+    /**
+     * Order rows go out with the index's end-of-tick flush; the assignments are fetched with one
+     * query and saved together, so with JDBC batching a tick costs the same few statements however
+     * many orders finish in it. An order due during a tick is stamped with its due time rather
+     * than the tick's, so the prep time learned from it is not stretched by the gap between ticks.
+     */
+    private void completeOrders(List<SchedulingIndex.Completion> completions) {
+        Map<Long, Order> completed = new LinkedHashMap<>();
+        for (SchedulingIndex.Completion c : completions) {
+            Order order = c.order();
+            if (order.getStatus() != OrderStatus.PREPARING) continue;
+            order.setStatus(OrderStatus.COMPLETED);
+            order.setCompletionTime(c.at());
+            schedulingPartitions.forOrder(order).markCompleted(order);
+            completed.put(order.getId(), order);
+        }
+        if (completed.isEmpty()) return;
 
-        metricsService.recordCompletion(order);
+        List<Assignment> assignments = assignmentRepository.findByOrderIdIn(completed.keySet());
+        for (Assignment a : assignments) {
+            a.setCompletedAt(completed.get(a.getOrder().getId()).getCompletionTime());
+        }
+        assignmentRepository.saveAll(assignments);
     }
 }
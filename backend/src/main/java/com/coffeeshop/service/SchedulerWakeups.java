@@ -0,0 +1,88 @@
+package com.coffeeshop.service;
+
+import com.coffeeshop.event.OrderAcceptedEvent;
+import com.coffeeshop.event.SchedulerTickEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+
+
+/**
+ * Ticks a store when something it is waiting for happens: a new order, the next order due to
+ * finish, or the next priority breakpoint. Requests that land within
+ * {@code coffeeshop.scheduler.debounce-ms} of each other share one tick, and each store has at
+ * most one wake-up armed, the earliest. A store with nothing pending is not woken at all and is
+ * left to the fixed-rate safety net in {@link SchedulerService#runScheduler}.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class SchedulerWakeups {
+
+    private final SchedulerService schedulerService;
+    private final SchedulingPartitions schedulingPartitions;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${coffeeshop.scheduler.reactive:true}")
+    private boolean reactive;
+
+    @Value("${coffeeshop.scheduler.debounce-ms:250}")
+    private long debounceMillis;
+
+    private final ConcurrentMap<Long, Wakeup> armed = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onOrderAccepted(OrderAcceptedEvent event) {
+        wakeAt(event.order().getStoreId(), Instant.now().plusMillis(debounceMillis));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSchedulerTick(SchedulerTickEvent event) {
+        Instant next = schedulingPartitions.find(event.storeId()).map(SchedulingIndex::nextEventAt).orElse(null);
+        if (next == null) return;
+        Instant earliest = Instant.now().plusMillis(debounceMillis);
+        wakeAt(event.storeId(), next.isBefore(earliest) ? earliest : next);
+    }
+
+    private void wakeAt(long storeId, Instant at) {
+        if (!reactive) return;
+        armed.compute(storeId, (id, current) -> {
+            if (current != null && !current.future.isDone() && !current.at.isAfter(at)) return current;
+            if (current != null) current.future.cancel(false);
+            Wakeup wakeup = new Wakeup(id, at);
+            wakeup.future = taskScheduler.schedule(wakeup, at);
+            return wakeup;
+        });
+    }
+
+
+    private final class Wakeup implements Runnable {
+
+        final long storeId;
+        final Instant at;
+        volatile ScheduledFuture<?> future;
+
+        Wakeup(long storeId, Instant at) {
+            this.storeId = storeId;
+            this.at = at;
+        }
+
+        @Override
+        public void run() {
+            armed.remove(storeId, this);
+            if (!schedulerService.tickAsync(storeId)) {
+                log.debug("Store {} is still ticking, retrying wake-up", storeId);
+                wakeAt(storeId, Instant.now().plusMillis(debounceMillis));
+            }
+        }
+    }
+}
@@ -0,0 +1,513 @@
+package com.coffeeshop.service;
+
+import com.coffeeshop.event.OrderChangedEvent;
+import com.coffeeshop.model.Order;
+import com.coffeeshop.model.OrderStatus;
+import com.coffeeshop.repository.OrderRepository;
+import com.coffeeshop.scheduling.DrinkBatching;
+import com.coffeeshop.scheduling.OrderTable;
+import com.coffeeshop.scheduling.PrepTimeModel;
+import com.coffeeshop.scheduling.PrepTimes;
+import com.coffeeshop.scheduling.QueueView;
+import com.coffeeshop.scheduling.RowList;
+import com.coffeeshop.scheduling.RowQueue;
+import com.coffeeshop.scheduling.SchedulingPolicy;
+import com.coffeeshop.util.FenwickTree;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Instant;
+import java.util.*;
+
+
+/**
+ * Live queue of one store. Each store has its own index and its own lock, handed out by
+ * {@link SchedulingPartitions}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SchedulingIndex {
+
+    private static final Comparator<Order> BY_ARRIVAL = Comparator
+        .comparing(Order::getArrivalTime)
+        .thenComparing(Order::getId);
+
+    private final OrderRepository orderRepository;
+    private final SchedulingPolicy schedulingPolicy;
+    private final PrepTimeModel prepTimeModel;
+    private final DrinkBatching drinkBatching;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long storeId;
+
+    private final OrderTable table = new OrderTable();
+    private final RowQueue queue = new RowQueue(table);
+    private final Map<Long, Integer> rowById = new HashMap<>();
+    private final List<Order> orderByRow = new ArrayList<>();
+    private final Map<Long, Order> preparing = new LinkedHashMap<>();
+    private final Map<Long, Map<Long, Order>> preparingByBarista = new HashMap<>();
+    private final Map<Long, Double> prepMinutesById = new HashMap<>();
+    private final PriorityQueue<Completion> completions =
+        new PriorityQueue<>(Comparator.comparing(Completion::at));
+    private final Map<Long, Order> dirty = new LinkedHashMap<>();
+    private final PriorityQueue<PriorityBreakpoint> breakpoints =
+        new PriorityQueue<>(Comparator.comparing(PriorityBreakpoint::at));
+    private Instant lastRescoreAt;
+    private boolean loaded = false;
+    private long version;
+
+    private static final int MAX_LATER_ARRIVALS_BEFORE_PENALTY = 3;
+
+    private final FenwickTree servedByArrivalRank = new FenwickTree();
+    private final List<Instant> arrivalTimes = new ArrayList<>();
+    private final Map<Long, Integer> fairnessBase = new HashMap<>();
+    private final NavigableSet<Order> unpenalized = new TreeSet<>(BY_ARRIVAL);
+    private volatile Load load;
+
+    public synchronized void ensureLoaded() {
+        if (loaded) return;
+        clear();
+        for (Order o : orderRepository.findByStoreIdAndStatusOrderByArrivalTimeAsc(storeId, OrderStatus.QUEUED)) {
+            register(o);
+        }
+        for (Order o : orderRepository.findByStoreIdAndStatus(storeId, OrderStatus.PREPARING)) {
+            startPreparing(o);
+        }
+        loaded = true;
+        log.debug("Scheduling index for store {} loaded: {} queued, {} preparing", storeId, queue.size(), preparing.size());
+    }
+
+    public long storeId() {
+        return storeId;
+    }
+
+    /**
+     * Bumped whenever the queue, its priority order or the set of preparing orders changes.
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    public synchronized void invalidate() {
+        clear();
+        loaded = false;
+    }
+
+    public synchronized void enqueue(Order order) {
+        if (order.getStatus() != OrderStatus.QUEUED) return;
+        if (loaded && !rowById.containsKey(order.getId())) register(order);
+        eventPublisher.publishEvent(new OrderChangedEvent(order, OrderChangedEvent.Change.ENQUEUED));
+    }
+
+
+    public synchronized Collection<Order> pollDueBreakpoints(Instant now) {
+        if (lastRescoreAt != null && now.isBefore(lastRescoreAt)) {
+            breakpoints.clear();
+            lastRescoreAt = now;
+            return queuedByArrival();
+        }
+        lastRescoreAt = now;
+        Set<Order> due = Collections.newSetFromMap(new IdentityHashMap<>());
+        while (!breakpoints.isEmpty() && !breakpoints.peek().at().isAfter(now)) {
+            Order o = breakpoints.poll().order();
+            if (o.getStatus() == OrderStatus.QUEUED && rowById.containsKey(o.getId())) {
+                due.add(o);
+            }
+        }
+        return due;
+    }
+
+    public synchronized void rescore(Order order, Instant now) {
+        Integer row = rowById.get(order.getId());
+        if (row == null) return;
+        long nowMillis = now.toEpochMilli();
+        double score = schedulingPolicy.priority(table, row, nowMillis);
+        if (queue.reprioritize(row, score)) {
+            version++;
+            order.setPriorityScore(score);
+            dirty.put(order.getId(), order);
+            eventPublisher.publishEvent(new OrderChangedEvent(order, OrderChangedEvent.Change.RESCORED));
+        }
+        long next = schedulingPolicy.nextRescoreAt(table, row, nowMillis);
+        if (next != SchedulingPolicy.NEVER) {
+            breakpoints.add(new PriorityBreakpoint(Instant.ofEpochMilli(next), order));
+        }
+    }
+
+    /**
+     * @return the order for each of the free baristas given, in the same order, with {@code null}
+     * for a barista left idle
+     */
+    public synchronized List<Order> selectBatch(long[] baristaIds, double[] workloadRatios, Instant now) {
+        boolean uniform = prepTimeModel.sameForAll(baristaIds);
+        PrepTimes prepTimes = new PrepTimes() {
+            @Override
+            public double minutes(int barista, int row) {
+                return prepTimeModel.estimateMinutes(baristaIds[barista], orderByRow.get(row).getDrinkType());
+            }
+
+            @Override
+            public boolean uniform() {
+                return uniform;
+            }
+        };
+        int[] rows = schedulingPolicy.selectBatch(table, queue, workloadRatios, prepTimes, now.toEpochMilli());
+        List<Order> selected = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            selected.add(row == QueueView.NONE ? null : orderByRow.get(row));
+        }
+        return selected;
+    }
+
+    /**
+     * The order followed by the queued orders of the same drink the barista should make with it,
+     * leaving out orders picked for other baristas this tick.
+     */
+    public synchronized List<Order> batchFor(Order order, long baristaId, Collection<Order> reserved) {
+        Integer row = rowById.get(order.getId());
+        if (row == null || !drinkBatching.isEnabled()) return List.of(order);
+        int[] reservedRows = reserved.stream()
+            .filter(Objects::nonNull)
+            .map(o -> rowById.get(o.getId()))
+            .filter(Objects::nonNull)
+            .mapToInt(Integer::intValue)
+            .toArray();
+        double single = prepTimeModel.estimateMinutes(baristaId, order.getDrinkType());
+        List<Order> batch = new ArrayList<>();
+        batch.add(order);
+        for (int mate : drinkBatching.batchWith(table, queue, row, single, reservedRows)) {
+            batch.add(orderByRow.get(mate));
+        }
+        return batch;
+    }
+
+    public synchronized void markAssigned(Order order) {
+        Integer row = rowById.remove(order.getId());
+        if (row != null) {
+            queue.remove(row);
+            table.remove(row);
+            orderByRow.set(row, null);
+        }
+        unpenalized.remove(order);
+        Integer base = fairnessBase.remove(order.getId());
+        if (base != null) {
+            boolean wasUnfair = order.getLaterArrivalsServedFirst() > MAX_LATER_ARRIVALS_BEFORE_PENALTY;
+            int rank = arrivalRank(order.getArrivalTime());
+            int count = base + servedByArrivalRank.suffixSum(rank + 1);
+            order.setLaterArrivalsServedFirst(count);
+            if (count > MAX_LATER_ARRIVALS_BEFORE_PENALTY) {
+                order.setFairnessPenaltyApplied(true);
+                if (!wasUnfair) eventPublisher.publishEvent(new OrderChangedEvent(order, OrderChangedEvent.Change.PENALIZED));
+            }
+            servedByArrivalRank.add(rank, 1);
+        }
+        if (queue.isEmpty()) {
+            servedByArrivalRank.clear();
+            arrivalTimes.clear();
+            fairnessBase.clear();
+        }
+        startPreparing(order);
+        dirty.put(order.getId(), order);
+        eventPublisher.publishEvent(new OrderChangedEvent(order, OrderChangedEvent.Change.ASSIGNED));
+    }
+
+
+    public synchronized int laterArrivalsServedFirst(Order order) {
+        Integer base = fairnessBase.get(order.getId());
+        if (base == null) return order.getLaterArrivalsServedFirst();
+        return base + servedByArrivalRank.suffixSum(arrivalRank(order.getArrivalTime()) + 1);
+    }
+
+
+    /**
+     * Counts are not ordered by arrival: an order reloaded or taken in out of order starts from
+     * its persisted count, so every unpenalized order is checked.
+     */
+    public synchronized List<Order> applyFairnessPenalties(Instant now) {
+        List<Order> penalized = new ArrayList<>();
+        for (Iterator<Order> it = unpenalized.iterator(); it.hasNext(); ) {
+            Order o = it.next();
+            int count = laterArrivalsServedFirst(o);
+            if (count <= MAX_LATER_ARRIVALS_BEFORE_PENALTY) continue;
+            it.remove();
+            o.setLaterArrivalsServedFirst(count);
+            o.setFairnessPenaltyApplied(true);
+            table.setFairness(rowById.get(o.getId()), count, true);
+            dirty.put(o.getId(), o);
+            breakpoints.add(new PriorityBreakpoint(now, o));
+            penalized.add(o);
+            eventPublisher.publishEvent(new OrderChangedEvent(o, OrderChangedEvent.Change.PENALIZED));
+        }
+        return penalized;
+    }
+
+    public synchronized void markCompleted(Order order) {
+        stopPreparing(order);
+        if (order.getBarista() != null && order.getAssignmentTime() != null && order.getCompletionTime() != null) {
+            double batchMinutes = (order.getCompletionTime().toEpochMilli() - order.getAssignmentTime().toEpochMilli()) / 60_000.0;
+            double minutes = batchMinutes / drinkBatching.batchMinutes(1, order.getBatchSize());
+            prepTimeModel.record(order.getBarista().getId(), order.getDrinkType(), minutes);
+        }
+        dirty.put(order.getId(), order);
+        eventPublisher.publishEvent(new OrderChangedEvent(order, OrderChangedEvent.Change.COMPLETED));
+    }
+
+    public synchronized void markDirty(Order order) {
+        dirty.put(order.getId(), order);
+    }
+
+    public synchronized List<Order> prioritizedQueue() {
+        return toOrders(queue.rowsByPriority());
+    }
+
+    public synchronized List<Order> queuedByArrival() {
+        return toOrders(queue.rowsByArrival());
+    }
+
+    public synchronized int queueSize() {
+        return queue.size();
+    }
+
+    /** Records what the tick ending now leaves behind, for readers that must not wait for the lock. */
+    public synchronized void recordLoad(int baristas, int idleBaristas) {
+        load = new Load(queue.size(), baristas, idleBaristas);
+    }
+
+    /** The store as the last tick left it, or {@code null} before its first tick. */
+    public Load lastTickLoad() {
+        return load;
+    }
+
+    public synchronized Order oldestQueued() {
+        int row = queue.oldest();
+        return row == QueueView.NONE ? null : orderByRow.get(row);
+    }
+
+    public synchronized boolean shouldForceAssign(Order order, Instant now) {
+        return schedulingPolicy.shouldForceAssign(waitMinutes(order, now));
+    }
+
+    public synchronized boolean shouldAlert(Order order, Instant now) {
+        return schedulingPolicy.shouldAlert(waitMinutes(order, now));
+    }
+
+    /**
+     * Earliest moment a tick can change anything here: the next order due to finish or the next
+     * priority breakpoint. {@code null} when nothing is pending.
+     */
+    public synchronized Instant nextEventAt() {
+        Instant next = breakpoints.isEmpty() ? null : breakpoints.peek().at();
+        while (!completions.isEmpty() && !isPending(completions.peek())) completions.poll();
+        if (!completions.isEmpty() && (next == null || completions.peek().at().isBefore(next))) {
+            next = completions.peek().at();
+        }
+        return next;
+    }
+
+    /**
+     * Preparing orders whose prep time has run out by {@code now}, earliest first, with the time
+     * each ran out. Each order is handed out once; orders completed some other way in the meantime
+     * are skipped.
+     */
+    public synchronized List<Completion> pollDueCompletions(Instant now) {
+        List<Completion> due = new ArrayList<>();
+        while (!completions.isEmpty() && !completions.peek().at().isAfter(now)) {
+            Completion c = completions.poll();
+            if (isPending(c)) due.add(c);
+        }
+        return due;
+    }
+
+    /**
+     * Whole minutes the barista still has on orders in hand at the prep times their completions
+     * were scheduled with, each order rounded up on its own. A batch counts once, shared between
+     * its orders.
+     */
+    public synchronized double remainingWorkMinutes(long baristaId, Instant now) {
+        Map<Long, Order> inHand = preparingByBarista.get(baristaId);
+        if (inHand == null) return 0;
+        double work = 0;
+        for (Order o : inHand.values()) {
+            Instant start = o.getAssignmentTime() != null ? o.getAssignmentTime() : now;
+            double elapsed = Math.max(0, now.toEpochMilli() - start.toEpochMilli()) / 60_000.0;
+            double estimate = drinkBatching.batchMinutes(prepMinutesById.get(o.getId()), o.getBatchSize());
+            work += Math.max(0, Math.ceil(estimate - elapsed)) / o.getBatchSize();
+        }
+        return work;
+    }
+
+    /**
+     * Whether the barista can start another order: fewer than {@code slots} orders (a batch
+     * counting once) still have time to run, and none of them still needs their hands.
+     */
+    public synchronized boolean canStartOrder(long baristaId, int slots, Instant now) {
+        Map<Long, Order> inHand = preparingByBarista.get(baristaId);
+        if (inHand == null) return true;
+        double jobs = 0;
+        for (Order o : inHand.values()) {
+            Instant start = o.getAssignmentTime() != null ? o.getAssignmentTime() : now;
+            double elapsed = Math.max(0, now.toEpochMilli() - start.toEpochMilli()) / 60_000.0;
+            double estimate = prepMinutesById.get(o.getId());
+            if (drinkBatching.batchMinutes(estimate, o.getBatchSize()) <= elapsed) continue;
+            if (drinkBatching.batchMinutes(estimate * o.getDrinkType().handsOnFraction(), o.getBatchSize()) > elapsed) {
+                return false;
+            }
+            jobs += 1.0 / o.getBatchSize();
+        }
+        return jobs < slots - 1e-9;
+    }
+
+    public synchronized List<Order> preparingBy(long baristaId) {
+        Map<Long, Order> inHand = preparingByBarista.get(baristaId);
+        return inHand == null ? List.of() : new ArrayList<>(inHand.values());
+    }
+
+    public synchronized Order getPreparing(Long orderId) {
+        return preparing.get(orderId);
+    }
+
+    /** When the preparing order is due to be ready, or {@code null} if it is not preparing here. */
+    public synchronized Instant dueAt(long orderId) {
+        Order order = preparing.get(orderId);
+        return order == null || order.getAssignmentTime() == null ? null : dueAt(order);
+    }
+
+
+    public synchronized int flush() {
+        if (dirty.isEmpty()) return 0;
+        List<Order> changed = new ArrayList<>(dirty.values());
+        dirty.clear();
+        // The index's orders outlive the transaction that loaded them, so saving them merges
+        // detached entities, and merge selects each one it does not find in the persistence
+        // context. Loading them all with one IN query first lets every merge hit the context.
+        orderRepository.findAllById(changed.stream().map(Order::getId).toList());
+        orderRepository.saveAll(changed);
+        return changed.size();
+    }
+
+    private void register(Order order) {
+        int row = table.add(order.getId(), order.getArrivalTime().toEpochMilli(), order.getDrinkType().ordinal(),
+            order.getPrepTimeMinutes(),
+            order.getDrinkType().getComplexityScore(), order.getLoyaltyStatus().getBoost());
+        table.setFairness(row, order.getLaterArrivalsServedFirst(), order.isFairnessPenaltyApplied());
+        table.setPriority(row, order.getPriorityScore() != null ? order.getPriorityScore() : Double.NaN);
+        while (orderByRow.size() <= row) orderByRow.add(null);
+        orderByRow.set(row, order);
+        rowById.put(order.getId(), row);
+        queue.add(row);
+        version++;
+        breakpoints.add(new PriorityBreakpoint(order.getArrivalTime(), order));
+        trackArrival(order);
+        if (!order.isFairnessPenaltyApplied() && order.getLaterArrivalsServedFirst() <= MAX_LATER_ARRIVALS_BEFORE_PENALTY) {
+            unpenalized.add(order);
+        }
+    }
+
+    /**
+     * Ranks are positions among the distinct arrival times seen since the queue last emptied, so
+     * orders that arrived at the same instant share a rank and never count each other. The base
+     * discounts the later arrivals already served when the order joins, which it never waited
+     * behind.
+     */
+    private void trackArrival(Order order) {
+        Instant arrival = order.getArrivalTime();
+        int rank = Collections.binarySearch(arrivalTimes, arrival);
+        if (rank < 0) {
+            rank = -rank - 1;
+            arrivalTimes.add(rank, arrival);
+            if (rank < arrivalTimes.size() - 1) shiftServedRanks(rank);
+        }
+        fairnessBase.put(order.getId(), order.getLaterArrivalsServedFirst() - servedByArrivalRank.suffixSum(rank + 1));
+    }
+
+    private void shiftServedRanks(int from) {
+        int[] served = new int[arrivalTimes.size()];
+        for (int rank = from; rank < served.length - 1; rank++) {
+            served[rank] = servedByArrivalRank.prefixSum(rank) - servedByArrivalRank.prefixSum(rank - 1);
+        }
+        for (int rank = served.length - 2; rank >= from; rank--) {
+            if (served[rank] == 0) continue;
+            servedByArrivalRank.add(rank, -served[rank]);
+            servedByArrivalRank.add(rank + 1, served[rank]);
+        }
+    }
+
+    private int arrivalRank(Instant arrival) {
+        return Collections.binarySearch(arrivalTimes, arrival);
+    }
+
+    /**
+     * The order's completion is due after its barista's learned prep time, taken once here, so
+     * the workload and free-slot checks see the same time the completion heap does.
+     */
+    private void startPreparing(Order order) {
+        version++;
+        preparing.put(order.getId(), order);
+        double prepMinutes = order.getPrepTimeMinutes();
+        if (order.getBarista() != null) {
+            preparingByBarista.computeIfAbsent(order.getBarista().getId(), id -> new LinkedHashMap<>())
+                .put(order.getId(), order);
+            prepMinutes = prepTimeModel.estimateMinutes(order.getBarista().getId(), order.getDrinkType());
+        }
+        prepMinutesById.put(order.getId(), prepMinutes);
+        if (order.getAssignmentTime() != null) {
+            completions.add(new Completion(dueAt(order), order));
+        }
+    }
+
+    private Instant dueAt(Order order) {
+        double batchMinutes = drinkBatching.batchMinutes(prepMinutesById.get(order.getId()), order.getBatchSize());
+        return order.getAssignmentTime().plusMillis(Math.round(batchMinutes * 60_000));
+    }
+
+    private void stopPreparing(Order order) {
+        version++;
+        preparing.remove(order.getId());
+        prepMinutesById.remove(order.getId());
+        if (order.getBarista() == null) return;
+        Map<Long, Order> inHand = preparingByBarista.get(order.getBarista().getId());
+        if (inHand != null && inHand.remove(order.getId()) != null && inHand.isEmpty()) {
+            preparingByBarista.remove(order.getBarista().getId());
+        }
+    }
+
+    private boolean isPending(Completion c) {
+        return preparing.get(c.order().getId()) == c.order();
+    }
+
+    private long waitMinutes(Order order, Instant now) {
+        long assigned = order.getAssignmentTime() != null ? order.getAssignmentTime().toEpochMilli() : OrderTable.UNASSIGNED;
+        return schedulingPolicy.waitMinutes(order.getArrivalTime().toEpochMilli(), assigned, now.toEpochMilli());
+    }
+
+    private List<Order> toOrders(RowList rows) {
+        List<Order> orders = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) orders.add(orderByRow.get(rows.row(i)));
+        return orders;
+    }
+
+    private void clear() {
+        version++;
+        queue.clear();
+        table.clear();
+        rowById.clear();
+        orderByRow.clear();
+        preparing.clear();
+        preparingByBarista.clear();
+        prepMinutesById.clear();
+        completions.clear();
+        dirty.clear();
+        breakpoints.clear();
+        lastRescoreAt = null;
+        servedByArrivalRank.clear();
+        arrivalTimes.clear();
+        fairnessBase.clear();
+        unpenalized.clear();
+    }
+
+    private record PriorityBreakpoint(Instant at, Order order) {}
+
+    public record Completion(Instant at, Order order) {}
+
+    public record Load(int queued, int baristas, int idleBaristas) {}
+}
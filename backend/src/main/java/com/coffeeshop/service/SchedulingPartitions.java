@@ -0,0 +1,149 @@
+package com.coffeeshop.service;
+
+import com.coffeeshop.model.Order;
+import com.coffeeshop.model.OrderStatus;
+import com.coffeeshop.repository.BaristaRepository;
+import com.coffeeshop.repository.OrderRepository;
+import com.coffeeshop.scheduling.DrinkBatching;
+import com.coffeeshop.scheduling.PrepTimeModel;
+import com.coffeeshop.scheduling.SchedulingPolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * One {@link SchedulingIndex} per store. Stores share nothing on the tick path, so their ticks run
+ * side by side on a fixed pool of {@code coffeeshop.scheduler.partition-threads} threads.
+ *
+ * <p>Only a store with baristas, or with live orders in the database, gets a partition: a partition
+ * is ticked for good once it exists, so request paths look one up with {@link #find} and check
+ * {@link #isKnown} rather than creating one for whatever id they are sent.
+ */
+@Component
+@Slf4j
+public class SchedulingPartitions implements DisposableBean {
+
+    private final OrderRepository orderRepository;
+    private final BaristaRepository baristaRepository;
+    private final SchedulingPolicy schedulingPolicy;
+    private final PrepTimeModel prepTimeModel;
+    private final DrinkBatching drinkBatching;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Executor tickExecutor;
+
+    private final ConcurrentMap<Long, SchedulingIndex> partitions = new ConcurrentHashMap<>();
+    private volatile boolean discovered = false;
+
+    @Autowired
+    public SchedulingPartitions(OrderRepository orderRepository, BaristaRepository baristaRepository,
+                                SchedulingPolicy schedulingPolicy, PrepTimeModel prepTimeModel,
+                                DrinkBatching drinkBatching, ApplicationEventPublisher eventPublisher,
+                                @Value("${coffeeshop.scheduler.partition-threads:4}") int threads) {
+        this(orderRepository, baristaRepository, schedulingPolicy, prepTimeModel, drinkBatching, eventPublisher,
+            newTickPool(threads));
+    }
+
+    SchedulingPartitions(OrderRepository orderRepository, BaristaRepository baristaRepository,
+                         SchedulingPolicy schedulingPolicy, PrepTimeModel prepTimeModel, DrinkBatching drinkBatching,
+                         ApplicationEventPublisher eventPublisher, Executor tickExecutor) {
+        this.orderRepository = orderRepository;
+        this.baristaRepository = baristaRepository;
+        this.schedulingPolicy = schedulingPolicy;
+        this.prepTimeModel = prepTimeModel;
+        this.drinkBatching = drinkBatching;
+        this.eventPublisher = eventPublisher;
+        this.tickExecutor = tickExecutor;
+    }
+
+    /**
+     * The store's partition, created the first time a known store is asked for.
+     *
+     * @throws IllegalArgumentException if the store has no partition and no baristas
+     */
+    public SchedulingIndex forStore(long storeId) {
+        SchedulingIndex index = partitions.get(storeId);
+        if (index != null) return index;
+        if (!baristaRepository.existsByStoreId(storeId)) {
+            throw new IllegalArgumentException("Unknown store " + storeId);
+        }
+        return create(storeId);
+    }
+
+    /** The store's partition if it already has one; never creates one. */
+    public Optional<SchedulingIndex> find(long storeId) {
+        return Optional.ofNullable(partitions.get(storeId));
+    }
+
+    public boolean isKnown(long storeId) {
+        return partitions.containsKey(storeId) || baristaRepository.existsByStoreId(storeId);
+    }
+
+    public SchedulingIndex forOrder(Order order) {
+        return forStore(order.getStoreId());
+    }
+
+    /**
+     * Stores that already have a partition, plus, the first time round, every store with queued or
+     * preparing orders in the database.
+     */
+    public Collection<Long> storeIds() {
+        if (!discovered) {
+            List<Long> active = orderRepository.findStoreIdsByStatusIn(EnumSet.of(OrderStatus.QUEUED, OrderStatus.PREPARING));
+            active.forEach(this::create);
+            discovered = true;
+        }
+        return partitions.keySet();
+    }
+
+    private SchedulingIndex create(long storeId) {
+        return partitions.computeIfAbsent(storeId,
+            id -> new SchedulingIndex(orderRepository, schedulingPolicy, prepTimeModel, drinkBatching, eventPublisher, id));
+    }
+
+    public Collection<SchedulingIndex> all() {
+        return partitions.values();
+    }
+
+    public void invalidateAll() {
+        for (SchedulingIndex index : partitions.values()) {
+            synchronized (index) {
+                index.invalidate();
+            }
+        }
+        discovered = false;
+    }
+
+    public CompletableFuture<Void> submit(Runnable tick) {
+        return CompletableFuture.runAsync(tick, tickExecutor);
+    }
+
+    @Override
+    public void destroy() {
+        if (tickExecutor instanceof ExecutorService pool) pool.shutdown();
+    }
+
+    private static ExecutorService newTickPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "store-tick-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
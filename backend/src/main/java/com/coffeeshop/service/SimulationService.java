@@ -2,6 +2,7 @@ package com.coffeeshop.service;
 
 import com.coffeeshop.model.*;
 import com.coffeeshop.repository.*;
+import com.coffeeshop.scheduling.AdmissionPolicy;
 import com.coffeeshop.util.PoissonGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,6 +10,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Instant;
 import java.util.List;
@@ -24,10 +27,19 @@ public class SimulationService {
     private final BaristaRepository baristaRepository;
     private final AssignmentRepository assignmentRepository;
     private final SchedulerService schedulerService;
+    private final SchedulingPartitions schedulingPartitions;
+    private final OrderIntake orderIntake;
+    private final AdmissionControl admissionControl;
 
     @Value("${coffeeshop.simulation.lambda:1.4}")
     private double lambda;
 
+    @Value("${coffeeshop.simulation.stores:1}")
+    private int stores;
+
+    @Value("${coffeeshop.barista.slots:1}")
+    private int baristaSlots;
+
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final Random random = new Random();
 
@@ -51,16 +63,18 @@ public class SimulationService {
             return;
         }
 
-        if (baristaRepository.count() == 0) {
+        for (long storeId = 1; storeId <= stores; storeId++) {
+            if (!baristaRepository.findByStoreIdOrderByIdAsc(storeId).isEmpty()) continue;
             for (int i = 1; i <= 3; i++) {
-                Barista b = Barista.builder().name("Barista " + i).currentWorkloadMinutes(0).workloadRatio(1.0).build();
+                Barista b = Barista.builder().storeId(storeId).name("Barista " + i).slots(baristaSlots)
+                    .currentWorkloadMinutes(0).workloadRatio(1.0).build();
                 baristaRepository.save(b);
             }
-            log.info("Created 3 baristas");
+            log.info("Created 3 baristas for store {}", storeId);
         }
 
         running.set(true);
-        log.info("Simulation STARTED - Poisson λ={}", lambda);
+        log.info("Simulation STARTED - Poisson λ={} across {} store(s)", lambda, stores);
     }
 
     public void stopSimulation() {
@@ -70,36 +84,72 @@ public class SimulationService {
 
 
     @Scheduled(fixedRate = 60_000)
-    @Transactional
     public void tickSimulation() {
         if (!running.get()) return;
 
-        int arrivals = PoissonGenerator.generate(lambda);
-        for (int i = 0; i < arrivals; i++) {
-            createRandomOrder();
+        for (long storeId = 1; storeId <= stores; storeId++) {
+            int arrivals = PoissonGenerator.generate(lambda);
+            for (int i = 0; i < arrivals; i++) {
+                if (admissionControl.admit(storeId, Instant.now()).decision() == AdmissionPolicy.Decision.SHED) continue;
+                orderIntake.accept(storeId, randomName(), randomDrink(), randomLoyalty());
+            }
         }
     }
 
 
     @Transactional
     public Order createRandomOrder() {
-        String name = NAMES[random.nextInt(NAMES.length)] + " " + (1000 + random.nextInt(9000));
-        DrinkType drink = DRINKS[random.nextInt(DRINKS.length)];
-        LoyaltyStatus loyalty = random.nextDouble() < 0.2 ? LoyaltyStatus.GOLD : LoyaltyStatus.REGULAR;
+        return createRandomOrder(Order.DEFAULT_STORE_ID);
+    }
 
+    @Transactional
+    public Order createRandomOrder(long storeId) {
         Order order = Order.builder()
-            .customerName(name)
-            .drinkType(drink)
-            .loyaltyStatus(loyalty)
+            .storeId(storeId)
+            .customerName(randomName())
+            .drinkType(randomDrink())
+            .loyaltyStatus(randomLoyalty())
             .status(OrderStatus.QUEUED)
             .arrivalTime(Instant.now())
             .build();
         order = orderRepository.save(order);
+        enqueueAfterCommit(order);
         log.debug("New order: {} - {} ({})", order.getId(), order.getCustomerName(), order.getDrinkType());
         return order;
     }
 
 
+    /**
+     * The scheduler reads orders it has been handed as committed, so an order joins its store's
+     * queue only once the transaction that saved it has; without one it joins straight away.
+     */
+    private void enqueueAfterCommit(Order order) {
+        SchedulingIndex index = schedulingPartitions.forOrder(order);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            index.enqueue(order);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                index.enqueue(order);
+            }
+        });
+    }
+
+    private String randomName() {
+        return NAMES[random.nextInt(NAMES.length)] + " " + (1000 + random.nextInt(9000));
+    }
+
+    private DrinkType randomDrink() {
+        return DRINKS[random.nextInt(DRINKS.length)];
+    }
+
+    private LoyaltyStatus randomLoyalty() {
+        return random.nextDouble() < 0.2 ? LoyaltyStatus.GOLD : LoyaltyStatus.REGULAR;
+    }
+
+
     @Transactional
     public Order createOrder(String customerName, DrinkType drinkType, LoyaltyStatus loyaltyStatus) {
         return createOrderWithArrivalTime(customerName, drinkType, loyaltyStatus, Instant.now());
@@ -108,27 +158,39 @@ public class SimulationService {
 
     @Transactional
     public Order createOrderWithArrivalTime(String customerName, DrinkType drinkType, LoyaltyStatus loyaltyStatus, Instant arrivalTime) {
+        return createOrderWithArrivalTime(Order.DEFAULT_STORE_ID, customerName, drinkType, loyaltyStatus, arrivalTime);
+    }
+
+    @Transactional
+    public Order createOrderWithArrivalTime(long storeId, String customerName, DrinkType drinkType,
+                                            LoyaltyStatus loyaltyStatus, Instant arrivalTime) {
         Order order = Order.builder()
+            .storeId(storeId)
             .customerName(customerName)
             .drinkType(drinkType)
             .loyaltyStatus(loyaltyStatus != null ? loyaltyStatus : LoyaltyStatus.REGULAR)
             .status(OrderStatus.QUEUED)
             .arrivalTime(arrivalTime)
             .build();
-        return orderRepository.save(order);
+        order = orderRepository.save(order);
+        enqueueAfterCommit(order);
+        return order;
     }
 
 
     @Transactional
     public void resetForTest() {
+        schedulingPartitions.invalidateAll();
         assignmentRepository.deleteAll();
         orderRepository.deleteAll();
         if (baristaRepository.count() == 0) {
             for (int i = 1; i <= 3; i++) {
-                baristaRepository.save(Barista.builder().name("Barista " + i).currentWorkloadMinutes(0).workloadRatio(1.0).build());
+                baristaRepository.save(Barista.builder().name("Barista " + i).slots(baristaSlots)
+                    .currentWorkloadMinutes(0).workloadRatio(1.0).build());
             }
         } else {
             for (Barista b : baristaRepository.findAllByOrderByIdAsc()) {
+                b.setSlots(baristaSlots);
                 b.setCurrentWorkloadMinutes(0);
                 b.setWorkloadRatio(1.0);
                 baristaRepository.save(b);
@@ -2,10 +2,15 @@ package com.coffeeshop.service;
 
 import com.coffeeshop.model.*;
 import com.coffeeshop.repository.*;
+import com.coffeeshop.scheduling.AdmissionPolicy;
+import com.coffeeshop.scheduling.DrinkBatching;
+import com.coffeeshop.simulation.MonteCarloRunner;
+import com.coffeeshop.simulation.SimulationEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -17,11 +22,13 @@ import java.util.*;
 @RequiredArgsConstructor
 public class TestSimulationService {
 
-    private final SimulationService simulationService;
-    private final SchedulerService schedulerService;
-    private final OrderRepository orderRepository;
-    private final BaristaRepository baristaRepository;
     private final OrderService orderService;
+    private final DrinkBatching drinkBatching;
+    private final AdmissionPolicy admissionPolicy;
+    private final AutowireCapableBeanFactory beanFactory;
+
+    @Value("${coffeeshop.barista.slots:1}")
+    private int baristaSlots;
 
     private static final int NUM_TEST_CASES = 10;
     private static final int ORDERS_PER_CASE = 250;
@@ -33,14 +40,28 @@ public class TestSimulationService {
     private static final int[] DRINK_WEIGHTS = {25, 20, 15, 20, 12, 8};
 
 
-    @Transactional
+    /**
+     * Offline runs at each arrival rate from {@code fromLambda} to {@code toLambda}, with the
+     * configured admission control and without it, to show where the store starts shedding orders.
+     */
+    public List<SimulationEngine.AdmissionSweepPoint> sweepAdmission(double fromLambda, double toLambda, double step,
+                                                                     int runsPerRate) {
+        int points = (int) Math.floor((toLambda - fromLambda) / step + 1e-9) + 1;
+        double[] lambdas = new double[Math.max(0, points)];
+        for (int i = 0; i < lambdas.length; i++) lambdas[i] = fromLambda + i * step;
+        return SimulationEngine.sweepArrivalRates(lambdas, runsPerRate, MonteCarloRunner.parallel(),
+            () -> SimulationEngine.baristas(3, baristaSlots), drinkBatching, admissionPolicy);
+    }
+
     public SimulationResult runMonteCarlo() {
         orderService.clearAccumulatedTestOrders();
         List<TestCaseResult> results = new ArrayList<>();
         for (int i = 0; i < NUM_TEST_CASES; i++) {
-            TestCaseResult r = runSingleTestCase(i + 1, i);
+            InMemorySchedulingContext ctx = new InMemorySchedulingContext(beanFactory);
+            TestCaseResult r = runSingleTestCase(ctx, i + 1, i);
             results.add(r);
-            orderService.appendRunOrders(orderRepository.findAll(), i + 1, Instant.EPOCH);
+            orderService.appendRunOrders(ctx.getOrderService()
+                .toRunOrderDTOs(ctx.getOrderRepository().findAll(), i + 1, Instant.EPOCH));
         }
 
         double avgWait = results.stream().mapToDouble(TestCaseResult::getAvgWaitTimeMinutes).average().orElse(0);
@@ -65,7 +86,10 @@ public class TestSimulationService {
             .build();
     }
 
-    private TestCaseResult runSingleTestCase(int testCaseIndex, int seed) {
+    private TestCaseResult runSingleTestCase(InMemorySchedulingContext ctx, int testCaseIndex, int seed) {
+        SimulationService simulationService = ctx.getSimulationService();
+        SchedulerService schedulerService = ctx.getSchedulerService();
+        OrderRepository orderRepository = ctx.getOrderRepository();
         simulationService.resetForTest();
         Instant base = Instant.EPOCH;
 
@@ -97,7 +121,7 @@ public class TestSimulationService {
             if (completed >= ORDERS_PER_CASE) break;
         }
 
-        return observeMetrics(testCaseIndex);
+        return observeMetrics(testCaseIndex, orderRepository, ctx.getBaristaRepository());
     }
 
     private static class OrderSpec {
@@ -123,7 +147,7 @@ public class TestSimulationService {
         return DRINKS[DRINKS.length - 1];
     }
 
-    private TestCaseResult observeMetrics(int testCaseIndex) {
+    private TestCaseResult observeMetrics(int testCaseIndex, OrderRepository orderRepository, BaristaRepository baristaRepository) {
         List<Order> completed = orderRepository.findByStatus(OrderStatus.COMPLETED);
         List<Order> all = orderRepository.findAll();
         List<Barista> baristas = baristaRepository.findAllByOrderByIdAsc();
@@ -144,13 +168,13 @@ public class TestSimulationService {
 
         double timeoutRate = completed.isEmpty() ? 0 : Math.min(1.0, (double) ordersExceeded10Min / completed.size());
         int fairnessViolations = (int) all.stream().filter(o -> o.getLaterArrivalsServedFirst() > 3).count();
-        double balancePct = computeWorkloadBalance(baristas);
+        double balancePct = computeWorkloadBalance(baristas, completed);
 
         Map<String, Object> perBarista = new LinkedHashMap<>();
         for (Barista b : baristas) {
             int ordersCompleted = (int) completed.stream().filter(o -> b.equals(o.getBarista())).count();
             double totalBusyTime = completed.stream().filter(o -> b.equals(o.getBarista()))
-                .mapToDouble(Order::getPrepTimeMinutes).sum();
+                .mapToDouble(this::busyMinutes).sum();
             double totalWaitTime = completed.stream().filter(o -> b.equals(o.getBarista()))
                 .filter(o -> o.getAssignmentTime() != null)
                 .mapToDouble(o -> (o.getAssignmentTime().toEpochMilli() - o.getArrivalTime().toEpochMilli()) / 60_000.0)
@@ -178,13 +202,17 @@ public class TestSimulationService {
             .build();
     }
 
-    private double computeWorkloadBalance(List<Barista> baristas) {
+    /** The order's share of the batch it was made in. */
+    private double busyMinutes(Order order) {
+        return drinkBatching.batchMinutes(order.getPrepTimeMinutes(), order.getBatchSize()) / order.getBatchSize();
+    }
+
+    private double computeWorkloadBalance(List<Barista> baristas, List<Order> completed) {
         if (baristas.size() < 2) return 100.0;
-        List<Order> completed = orderRepository.findByStatus(OrderStatus.COMPLETED);
         double[] busyTimes = baristas.stream()
             .mapToDouble(b -> completed.stream()
                 .filter(o -> b.equals(o.getBarista()))
-                .mapToDouble(Order::getPrepTimeMinutes).sum())
+                .mapToDouble(this::busyMinutes).sum())
             .toArray();
         double mean = Arrays.stream(busyTimes).average().orElse(0);
         if (mean <= 0) return 100.0;
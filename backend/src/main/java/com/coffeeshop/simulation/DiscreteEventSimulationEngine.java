@@ -0,0 +1,245 @@
+package com.coffeeshop.simulation;
+
+import com.coffeeshop.scheduling.AdmissionPolicy;
+import com.coffeeshop.scheduling.DrinkBatching;
+import com.coffeeshop.scheduling.OrderTable;
+import com.coffeeshop.scheduling.PrepTimeModel;
+import com.coffeeshop.scheduling.QueueView;
+import com.coffeeshop.scheduling.RowQueue;
+import com.coffeeshop.scheduling.SchedulingPolicy;
+import com.coffeeshop.scheduling.WeightedPrioritySchedulingPolicy;
+
+import java.util.*;
+
+/**
+ * Event-driven counterpart of {@link SimulationEngine#runSingleTestCase}. Time jumps straight
+ * from one event to the next instead of stepping every 0.5 minutes, and a queued order is only
+ * rescored when the policy says its priority can change. Events still land on the scheduler's
+ * 0.5-minute grid, so the metrics match the tick engine exactly.
+ */
+public final class DiscreteEventSimulationEngine {
+
+    private static final long GRID_MILLIS = SimulationEngine.toMillis(SimulationEngine.TICK_MINUTES);
+
+    private DiscreteEventSimulationEngine() {}
+
+    public static SimulationEngine.TestCaseResult runSingleTestCase(int testCaseIndex, SimulatedOrders orders) {
+        return runSingleTestCase(testCaseIndex, orders, SimulationEngine.NUM_BARISTAS, SimulationEngine.SIM_END_MINUTES);
+    }
+
+    public static SimulationEngine.TestCaseResult runSingleTestCase(int testCaseIndex, SimulatedOrders orders,
+                                                                    int numBaristas, double horizonMinutes) {
+        return runSingleTestCase(testCaseIndex, orders, numBaristas, horizonMinutes,
+                WeightedPrioritySchedulingPolicy.defaults());
+    }
+
+    public static SimulationEngine.TestCaseResult runSingleTestCase(int testCaseIndex, SimulatedOrders orders,
+                                                                    int numBaristas, double horizonMinutes,
+                                                                    SchedulingPolicy policy) {
+        return runSingleTestCase(testCaseIndex, orders, SimulationEngine.baristas(numBaristas), horizonMinutes, policy, null,
+                DrinkBatching.disabled());
+    }
+
+    /**
+     * @param prepTimeModel learns each barista's prep times and routes orders by them, or
+     *                      {@code null} to route by nominal prep times
+     */
+    public static SimulationEngine.TestCaseResult runSingleTestCase(int testCaseIndex, SimulatedOrders orders,
+                                                                    List<TestBarista> baristas, double horizonMinutes,
+                                                                    SchedulingPolicy policy, PrepTimeModel prepTimeModel,
+                                                                    DrinkBatching batching) {
+        return runSingleTestCase(testCaseIndex, orders, baristas, horizonMinutes, policy, prepTimeModel, batching,
+                AdmissionPolicy.disabled());
+    }
+
+    /** @param admission decides which arriving orders to queue and which to shed */
+    public static SimulationEngine.TestCaseResult runSingleTestCase(int testCaseIndex, SimulatedOrders orders,
+                                                                    List<TestBarista> baristas, double horizonMinutes,
+                                                                    SchedulingPolicy policy, PrepTimeModel prepTimeModel,
+                                                                    DrinkBatching batching, AdmissionPolicy admission) {
+        return new Run(orders, baristas, horizonMinutes, policy, prepTimeModel, batching, admission).execute(testCaseIndex);
+    }
+
+    private enum EventType {
+        COMPLETION,
+        ARRIVAL,
+        PRIORITY_BREAKPOINT,
+        SCHEDULER_WAKEUP,
+        ALERT_CHECK
+    }
+
+    private record Event(long time, EventType type, long seq, int row, TestBarista barista)
+            implements Comparable<Event> {
+        @Override
+        public int compareTo(Event other) {
+            int c = Long.compare(time, other.time);
+            if (c != 0) return c;
+            c = type.compareTo(other.type);
+            return c != 0 ? c : Long.compare(seq, other.seq);
+        }
+    }
+
+    private static final class Run {
+        private final SimulatedOrders orders;
+        private final List<TestBarista> baristas;
+        private final long horizon;
+        private final SchedulingPolicy policy;
+        private final SimulatedQueue sim;
+        private final OrderTable table;
+        private final RowQueue queue;
+
+        private final PriorityQueue<Event> events = new PriorityQueue<>();
+        private int nextArrival = 0;
+        private long nextSeq = 0;
+
+        private int alertsSent = 0;
+        private int emergencyBoostsApplied = 0;
+        private int completedCount = 0;
+        private long lastSchedulerRun = Long.MIN_VALUE;
+        private long lastTick = 0;
+
+        Run(SimulatedOrders orders, List<TestBarista> baristas, double horizonMinutes, SchedulingPolicy policy,
+            PrepTimeModel prepTimeModel, DrinkBatching batching, AdmissionPolicy admission) {
+            this.orders = orders;
+            this.baristas = baristas;
+            this.horizon = SimulationEngine.toMillis(horizonMinutes);
+            this.policy = policy;
+            this.sim = new SimulatedQueue(orders, prepTimeModel, batching, admission);
+            this.table = sim.table;
+            this.queue = sim.queue;
+        }
+
+        SimulationEngine.TestCaseResult execute(int testCaseIndex) {
+            scheduleNextArrival();
+
+            while (!events.isEmpty() && completedCount + sim.shedCount < orders.size()) {
+                Event e = events.poll();
+                switch (e.type()) {
+                    case COMPLETION -> onCompletion(e);
+                    case ARRIVAL -> onArrival(e);
+                    case PRIORITY_BREAKPOINT -> onBreakpoint(e.row(), e.time());
+                    case SCHEDULER_WAKEUP -> onSchedulerWakeup(e.time());
+                    case ALERT_CHECK -> onAlertCheck(e.row());
+                }
+            }
+
+            long endTick = completedCount + sim.shedCount == orders.size() ? lastTick : lastGridTickBefore(horizon);
+            for (TestBarista b : baristas) {
+                b.setCurrentWorkloadMinutes(workloadMinutes(b, endTick));
+            }
+            WorkloadAnalyzer.updateWorkloadRatios(baristas);
+
+            return SimulationEngine.summarize(testCaseIndex, orders, baristas, sim.fairness, alertsSent, emergencyBoostsApplied);
+        }
+
+        private void onArrival(Event e) {
+            scheduleNextArrival();
+            if (!sim.admit(e.row(), baristas, e.time())) return;
+            onBreakpoint(e.row(), e.time());
+            schedule(e.time(), EventType.SCHEDULER_WAKEUP, QueueView.NONE, null);
+        }
+
+        private void onBreakpoint(int row, long t) {
+            if (!queue.contains(row)) return;
+            long waitMin = policy.waitMinutes(table, row, t);
+            if (policy.isUrgent(waitMin) && orders.markEmergencyBoostCounted(row)) {
+                emergencyBoostsApplied++;
+            }
+            queue.reprioritize(row, policy.priority(table, row, t));
+            if (policy.shouldAlert(waitMin) && !orders.isAlertSent(row)) {
+                schedule(t, EventType.ALERT_CHECK, row, null);
+            }
+            long next = policy.nextRescoreAt(table, row, t);
+            if (next != SchedulingPolicy.NEVER) {
+                schedule(gridTickAtOrAfter(next), EventType.PRIORITY_BREAKPOINT, row, null);
+            }
+        }
+
+        private void onAlertCheck(int row) {
+            if (queue.contains(row) && orders.markAlertSent(row)) {
+                alertsSent++;
+            }
+        }
+
+        private void onCompletion(Event e) {
+            TestBarista b = e.barista();
+            completedCount += sim.complete(b, e.row());
+            lastTick = e.time();
+            schedule(e.time(), EventType.SCHEDULER_WAKEUP, QueueView.NONE, null);
+        }
+
+        private void onSchedulerWakeup(long t) {
+            if (t == lastSchedulerRun) return;
+            lastSchedulerRun = t;
+            lastTick = t;
+
+            for (TestBarista b : baristas) {
+                b.setCurrentWorkloadMinutes(workloadMinutes(b, t));
+            }
+            WorkloadAnalyzer.updateWorkloadRatios(baristas);
+
+            double minutes = SimulationEngine.toMinutes(t);
+            List<TestBarista> free = queue.isEmpty() ? List.of() : SimulationEngine.available(baristas, t);
+            if (!free.isEmpty()) {
+                int[] rows = policy.selectBatch(table, queue, SimulationEngine.workloadRatios(free), sim.prepTimes(free), t);
+                for (int i = 0; i < rows.length; i++) {
+                    if (rows[i] != QueueView.NONE) assign(rows[i], rows, free.get(i), minutes);
+                }
+            }
+
+            TestBarista avail;
+            while (!queue.isEmpty()
+                    && policy.shouldForceAssign(policy.waitMinutes(table, queue.oldest(), t))
+                    && (avail = SimulationEngine.firstAvailable(baristas, t)) != null) {
+                assign(queue.oldest(), TestBarista.NO_BATCH, avail, minutes);
+            }
+        }
+
+        private void assign(int row, int[] reserved, TestBarista b, double minutes) {
+            TestBarista.Job job = sim.assign(row, reserved, b, minutes);
+            schedule(completionTime(row), EventType.COMPLETION, row, b);
+            if (b.getSlots() > 1) schedule(job.handsFreeAt, EventType.SCHEDULER_WAKEUP, QueueView.NONE, null);
+        }
+
+        private void scheduleNextArrival() {
+            if (nextArrival < sim.arrivalOrder.length) {
+                int row = sim.arrivalOrder[nextArrival++];
+                double arrival = orders.arrivalMinutes(row);
+                long firstTick = (long) Math.ceil(arrival / SimulationEngine.TICK_MINUTES) * GRID_MILLIS;
+                schedule(firstTick, EventType.ARRIVAL, row, null);
+            }
+        }
+
+        private void schedule(long time, EventType type, int row, TestBarista barista) {
+            if (time >= horizon) return;
+            events.add(new Event(time, type, nextSeq++, row, barista));
+        }
+
+        /** Completions land on the next grid tick, where the tick engine would notice them. */
+        private long completionTime(int row) {
+            long ticks = (long) Math.ceil(orders.serviceMinutes(row) / SimulationEngine.TICK_MINUTES);
+            return SimulationEngine.toMillis(orders.assignmentMinutes(row)) + ticks * GRID_MILLIS;
+        }
+
+        /**
+         * Service time the barista has left at {@code t} on drinks started before it, as the tick
+         * engine counts it down, before it rounds up to the grid.
+         */
+        private double workloadMinutes(TestBarista b, long t) {
+            double workload = 0;
+            for (TestBarista.Job job : b.getJobs()) {
+                long assigned = SimulationEngine.toMillis(orders.assignmentMinutes(job.row));
+                if (assigned < t) workload += orders.serviceMinutes(job.row) - SimulationEngine.toMinutes(t - assigned);
+            }
+            return workload;
+        }
+
+        private static long gridTickAtOrAfter(long millis) {
+            return Math.floorDiv(millis + GRID_MILLIS - 1, GRID_MILLIS) * GRID_MILLIS;
+        }
+
+        private static long lastGridTickBefore(long millis) {
+            return (Math.floorDiv(millis + GRID_MILLIS - 1, GRID_MILLIS) - 1) * GRID_MILLIS;
+        }
+    }
+}
@@ -1,29 +1,76 @@
 package com.coffeeshop.simulation;
 
-import java.util.List;
+import com.coffeeshop.scheduling.OrderTable;
+import com.coffeeshop.util.FenwickTree;
 
 public final class FairnessTracker {
 
     private static final int MAX_LATER_ARRIVALS_BEFORE_PENALTY = 3;
 
-    private FairnessTracker() {}
-
-    public static void onOrderAssigned(TestOrder assignedOrder, List<TestOrder> queuedOrders) {
-        double assignedArrival = assignedOrder.getArrivalTimeMinutes();
-        for (TestOrder o : queuedOrders) {
-            if (o.getStatus().equals("QUEUED") && o.getArrivalTimeMinutes() < assignedArrival) {
-                int count = o.getLaterArrivalsServedFirst() + 1;
-                o.setLaterArrivalsServedFirst(count);
-                if (count > MAX_LATER_ARRIVALS_BEFORE_PENALTY) {
-                    o.setFairnessPenaltyApplied(true);
-                }
+    private final SimulatedOrders orders;
+    private final OrderTable table;
+    private final int[] rowByRank;
+    private final int[] rankByRow;
+    private final int[] laterFrom;
+    private final FenwickTree served;
+    private int penaltyFrontier = 0;
+
+    public FairnessTracker(SimulatedOrders orders, OrderTable table) {
+        this(orders, table, orders.rowsByArrival());
+    }
+
+    FairnessTracker(SimulatedOrders orders, OrderTable table, int[] rowsByArrival) {
+        this.orders = orders;
+        this.table = table;
+        this.rowByRank = rowsByArrival;
+        this.rankByRow = new int[rowsByArrival.length];
+        for (int rank = 0; rank < rowsByArrival.length; rank++) {
+            rankByRow[rowsByArrival[rank]] = rank;
+        }
+        this.laterFrom = new int[rowsByArrival.length];
+        for (int rank = rowsByArrival.length - 1; rank >= 0; rank--) {
+            boolean tiedWithNext = rank + 1 < rowsByArrival.length
+                && orders.arrivalMinutes(rowsByArrival[rank + 1]) == orders.arrivalMinutes(rowsByArrival[rank]);
+            laterFrom[rank] = tiedWithNext ? laterFrom[rank + 1] : rank + 1;
+        }
+        this.served = new FenwickTree(rowsByArrival.length);
+    }
+
+
+    public void onOrderAssigned(int row) {
+        int rank = rankByRow[row];
+        setCount(rank, laterArrivalsServedFirst(rank));
+        served.add(rank, 1);
+
+        while (penaltyFrontier < rowByRank.length) {
+            if (orders.isQueued(rowByRank[penaltyFrontier])) {
+                int count = laterArrivalsServedFirst(penaltyFrontier);
+                if (count <= MAX_LATER_ARRIVALS_BEFORE_PENALTY) break;
+                setCount(penaltyFrontier, count);
             }
+            penaltyFrontier++;
         }
     }
 
-    public static int countFairnessViolations(List<TestOrder> orders) {
-        return (int) orders.stream()
-                .filter(o -> o.getLaterArrivalsServedFirst() > MAX_LATER_ARRIVALS_BEFORE_PENALTY)
-                .count();
+    public int countFairnessViolations() {
+        int violations = 0;
+        for (int rank = 0; rank < rowByRank.length; rank++) {
+            int row = rowByRank[rank];
+            if (orders.isQueued(row)) {
+                setCount(rank, laterArrivalsServedFirst(rank));
+            }
+            if (table.laterArrivalsServedFirst(row) > MAX_LATER_ARRIVALS_BEFORE_PENALTY) violations++;
+        }
+        return violations;
+    }
+
+    private int laterArrivalsServedFirst(int rank) {
+        return served.suffixSum(laterFrom[rank]);
+    }
+
+    private void setCount(int rank, int count) {
+        int row = rowByRank[rank];
+        boolean penalized = table.fairnessPenaltyApplied(row) || count > MAX_LATER_ARRIVALS_BEFORE_PENALTY;
+        table.setFairness(row, count, penalized);
     }
 }
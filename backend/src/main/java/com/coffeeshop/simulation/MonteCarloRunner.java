@@ -0,0 +1,81 @@
+package com.coffeeshop.simulation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
+
+public final class MonteCarloRunner {
+
+    /**
+     * Leaves per worker when splitting replications: enough for work stealing to even out runs of
+     * different lengths, few enough that forking stays negligible next to the runs themselves.
+     */
+    private static final int LEAVES_PER_WORKER = 4;
+
+    private final ForkJoinPool pool;
+
+    private MonteCarloRunner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public static MonteCarloRunner serial() {
+        return new MonteCarloRunner(null);
+    }
+
+    public static MonteCarloRunner parallel() {
+        return new MonteCarloRunner(ForkJoinPool.commonPool());
+    }
+
+    public static MonteCarloRunner parallel(ForkJoinPool pool) {
+        return new MonteCarloRunner(pool);
+    }
+
+
+    public <T> List<T> run(int replications, IntFunction<T> replication) {
+        Object[] results = new Object[replications];
+        if (pool == null || replications <= 1) {
+            for (int seed = 0; seed < replications; seed++) {
+                results[seed] = replication.apply(seed);
+            }
+        } else {
+            int leafSize = Math.max(1, replications / (pool.getParallelism() * LEAVES_PER_WORKER));
+            pool.invoke(new ReplicationTask(results, replication, 0, replications, leafSize));
+        }
+        @SuppressWarnings("unchecked")
+        List<T> ordered = (List<T>) Arrays.asList(results);
+        return ordered;
+    }
+
+    private static final class ReplicationTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] results;
+        private final transient IntFunction<?> replication;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        ReplicationTask(Object[] results, IntFunction<?> replication, int from, int to, int leafSize) {
+            this.results = results;
+            this.replication = replication;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                for (int seed = from; seed < to; seed++) {
+                    results[seed] = replication.apply(seed);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ReplicationTask(results, replication, from, mid, leafSize),
+                new ReplicationTask(results, replication, mid, to, leafSize));
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.coffeeshop.simulation;
+
+import com.coffeeshop.model.DrinkType;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+
+/**
+ * Simulated orders stored column by column, one row per order, so a run of a million orders is a
+ * handful of primitive arrays rather than a million objects. Status and drink are byte codes,
+ * and the assignment reason is not stored at all: {@link #assignmentReason}
+ * rebuilds it from the row when someone asks. Arrival times stay doubles because the simulators
+ * snap them to the scheduler grid, where a float's rounding would move orders between ticks.
+ */
+public final class SimulatedOrders {
+
+    public static final byte QUEUED = 0;
+    public static final byte PREPARING = 1;
+    public static final byte COMPLETED = 2;
+    public static final byte SHED = 3;
+
+    private static final byte ALERT_SENT = 1;
+    private static final byte EMERGENCY_BOOST_COUNTED = 1 << 1;
+    private static final byte BARISTA_OVERLOADED = 1 << 2;
+    private static final byte BARISTA_UNDERUTILIZED = 1 << 3;
+    private static final byte WAIT_QUOTED = 1 << 4;
+    private static final DrinkType[] DRINKS = DrinkType.values();
+
+    private int size;
+    private double[] arrivalMinutes;
+    private byte[] drinks;
+    private byte[] loyaltyBoosts;
+    private byte[] status;
+    private byte[] flags;
+    private int[] baristaIds;
+    private double[] assignmentMinutes;
+    private double[] serviceMinutes;
+    private double[] priorityScores;
+
+    public SimulatedOrders(int capacity) {
+        int n = Math.max(1, capacity);
+        arrivalMinutes = new double[n];
+        drinks = new byte[n];
+        loyaltyBoosts = new byte[n];
+        status = new byte[n];
+        flags = new byte[n];
+        baristaIds = new int[n];
+        assignmentMinutes = new double[n];
+        serviceMinutes = new double[n];
+        priorityScores = new double[n];
+    }
+
+    public int add(double arrivalMinutes, DrinkType drinkType, int loyaltyBoost) {
+        if (size == this.arrivalMinutes.length) grow();
+        int row = size++;
+        this.arrivalMinutes[row] = arrivalMinutes;
+        this.drinks[row] = (byte) drinkType.ordinal();
+        this.loyaltyBoosts[row] = (byte) loyaltyBoost;
+        return row;
+    }
+
+    /** Puts every order back in the queue, as generated. */
+    public void reset() {
+        Arrays.fill(status, 0, size, QUEUED);
+        Arrays.fill(flags, 0, size, (byte) 0);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int id(int row) {
+        return row + 1;
+    }
+
+    public double arrivalMinutes(int row) {
+        return arrivalMinutes[row];
+    }
+
+    public DrinkType drinkType(int row) {
+        return DRINKS[drinks[row]];
+    }
+
+    /** The drink's nominal prep time. */
+    public int prepMinutes(int row) {
+        return drinkType(row).getPrepTimeMinutes();
+    }
+
+    public int complexityScore(int row) {
+        return drinkType(row).getComplexityScore();
+    }
+
+    public int loyaltyBoost(int row) {
+        return loyaltyBoosts[row];
+    }
+
+    public byte status(int row) {
+        return status[row];
+    }
+
+    public boolean isQueued(int row) {
+        return status[row] == QUEUED;
+    }
+
+    public boolean isCompleted(int row) {
+        return status[row] == COMPLETED;
+    }
+
+    /** Turned away on arrival by admission control; never queued. */
+    public boolean isShed(int row) {
+        return status[row] == SHED;
+    }
+
+    public int baristaId(int row) {
+        return baristaIds[row];
+    }
+
+    public double assignmentMinutes(int row) {
+        return assignmentMinutes[row];
+    }
+
+    /** How long the assigned barista takes over the order; meaningful once it is assigned. */
+    public double serviceMinutes(int row) {
+        return serviceMinutes[row];
+    }
+
+    public double completionMinutes(int row) {
+        return assignmentMinutes[row] + serviceMinutes[row];
+    }
+
+    public double waitMinutes(int row) {
+        return isAssigned(row) ? Math.max(0, assignmentMinutes[row] - arrivalMinutes[row]) : 0;
+    }
+
+    public double priorityScore(int row) {
+        return priorityScores[row];
+    }
+
+    public void assign(int row, int baristaId, double minutes, double serviceMinutes, double priorityScore,
+                       boolean baristaOverloaded, boolean baristaUnderutilized) {
+        status[row] = PREPARING;
+        baristaIds[row] = baristaId;
+        assignmentMinutes[row] = minutes;
+        this.serviceMinutes[row] = serviceMinutes;
+        priorityScores[row] = priorityScore;
+        if (baristaOverloaded) flags[row] |= BARISTA_OVERLOADED;
+        else if (baristaUnderutilized) flags[row] |= BARISTA_UNDERUTILIZED;
+    }
+
+    public void complete(int row) {
+        status[row] = COMPLETED;
+    }
+
+    public void shed(int row) {
+        status[row] = SHED;
+    }
+
+    /** Accepted with its predicted wait quoted, as that wait was over the quote threshold. */
+    public void markWaitQuoted(int row) {
+        flags[row] |= WAIT_QUOTED;
+    }
+
+    public boolean isWaitQuoted(int row) {
+        return (flags[row] & WAIT_QUOTED) != 0;
+    }
+
+    /** @return {@code true} the first time it is called for the row */
+    public boolean markAlertSent(int row) {
+        return setFlag(row, ALERT_SENT);
+    }
+
+    public boolean isAlertSent(int row) {
+        return (flags[row] & ALERT_SENT) != 0;
+    }
+
+    /** @return {@code true} the first time it is called for the row */
+    public boolean markEmergencyBoostCounted(int row) {
+        return setFlag(row, EMERGENCY_BOOST_COUNTED);
+    }
+
+    public String assignmentReason(int row) {
+        if (!isAssigned(row)) return null;
+        double wait = waitMinutes(row);
+        StringBuilder reason = new StringBuilder();
+        if (wait >= 9.5) reason.append("EMERGENCY: Approaching 10-min timeout. ");
+        else if (wait >= 8) reason.append("Urgency: Wait >8 min. ");
+        if ((flags[row] & BARISTA_OVERLOADED) != 0) reason.append("Short order for overloaded barista. ");
+        else if ((flags[row] & BARISTA_UNDERUTILIZED) != 0) reason.append("Complex order for underutilized barista. ");
+        reason.append(String.format("Priority=%.1f, Wait=%.1f min.", priorityScores[row], wait));
+        return reason.toString();
+    }
+
+    /** Rows sorted by arrival time, ties in row order. */
+    public int[] rowsByArrival() {
+        return IntStream.range(0, size).boxed()
+            .sorted(Comparator.comparingDouble(row -> arrivalMinutes[row]))
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    private boolean isAssigned(int row) {
+        return status[row] == PREPARING || status[row] == COMPLETED;
+    }
+
+    private boolean setFlag(int row, byte flag) {
+        if ((flags[row] & flag) != 0) return false;
+        flags[row] |= flag;
+        return true;
+    }
+
+    private void grow() {
+        int n = arrivalMinutes.length * 2;
+        arrivalMinutes = Arrays.copyOf(arrivalMinutes, n);
+        drinks = Arrays.copyOf(drinks, n);
+        loyaltyBoosts = Arrays.copyOf(loyaltyBoosts, n);
+        status = Arrays.copyOf(status, n);
+        flags = Arrays.copyOf(flags, n);
+        baristaIds = Arrays.copyOf(baristaIds, n);
+        assignmentMinutes = Arrays.copyOf(assignmentMinutes, n);
+        serviceMinutes = Arrays.copyOf(serviceMinutes, n);
+        priorityScores = Arrays.copyOf(priorityScores, n);
+    }
+}
@@ -0,0 +1,176 @@
+package com.coffeeshop.simulation;
+
+import com.coffeeshop.model.DrinkType;
+import com.coffeeshop.scheduling.AdmissionPolicy;
+import com.coffeeshop.scheduling.DrinkBatching;
+import com.coffeeshop.scheduling.OrderTable;
+import com.coffeeshop.scheduling.PrepTimeModel;
+import com.coffeeshop.scheduling.PrepTimes;
+import com.coffeeshop.scheduling.RowQueue;
+
+import java.util.Iterator;
+import java.util.List;
+
+final class SimulatedQueue {
+
+    final SimulatedOrders orders;
+    final OrderTable table;
+    final RowQueue queue;
+    final FairnessTracker fairness;
+    final int[] arrivalOrder;
+    private final PrepTimeModel prepTimeModel;
+    private final DrinkBatching batching;
+    private final AdmissionPolicy admission;
+    private final AdmissionPolicy.Rates rates;
+    int shedCount;
+
+    /**
+     * @param prepTimeModel learns each barista's prep times as orders complete and routes by them,
+     *                      or {@code null} to route by nominal prep times
+     */
+    SimulatedQueue(SimulatedOrders orders, PrepTimeModel prepTimeModel, DrinkBatching batching,
+                   AdmissionPolicy admission) {
+        this.orders = orders;
+        this.prepTimeModel = prepTimeModel;
+        this.batching = batching;
+        this.admission = admission;
+        this.rates = admission.newRates(0);
+        this.table = new OrderTable(orders.size());
+        for (int row = 0; row < orders.size(); row++) {
+            table.add(orders.id(row), SimulationEngine.toMillis(orders.arrivalMinutes(row)),
+                    orders.drinkType(row).ordinal(), orders.prepMinutes(row), orders.complexityScore(row), orders.loyaltyBoost(row));
+        }
+        this.queue = new RowQueue(table);
+        this.arrivalOrder = orders.rowsByArrival();
+        this.fairness = new FairnessTracker(orders, table, arrivalOrder);
+    }
+
+    /**
+     * Queues an arriving order unless admission control sheds it. Baristas free to start a drink
+     * right now take orders off the backlog the new order would join.
+     *
+     * @return whether the order joined the queue
+     */
+    boolean admit(int row, List<TestBarista> baristas, long nowMillis) {
+        if (admission.isEnabled()) {
+            rates.onArrival(nowMillis);
+            int backlog = queue.size() + 1;
+            for (TestBarista b : baristas) {
+                if (b.isAvailable(nowMillis)) backlog--;
+            }
+            switch (admission.decide(admission.predictedWaitMinutes(backlog, baristas.size(), rates, nowMillis))) {
+                case SHED -> {
+                    orders.shed(row);
+                    shedCount++;
+                    return false;
+                }
+                case QUOTE -> orders.markWaitQuoted(row);
+                case ACCEPT -> { }
+            }
+        }
+        queue.add(row);
+        return true;
+    }
+
+    /**
+     * Hands the barista {@code row} and whatever same-drink orders batching adds to it. The
+     * barista's hands are busy for the drink's hands-on share of the time, rounded up to the tick.
+     *
+     * @param reserved rows other baristas are taking at the same moment
+     */
+    TestBarista.Job assign(int row, int[] reserved, TestBarista barista, double currentTime) {
+        DrinkType drinkType = orders.drinkType(row);
+        double single = barista.prepMinutes(drinkType);
+        int[] mates = batching.batchWith(table, queue, row, single, reserved);
+        double service = batching.batchMinutes(single, mates.length + 1);
+        boolean overloaded = WorkloadAnalyzer.isOverloaded(barista);
+        boolean underutilized = WorkloadAnalyzer.isUnderutilized(barista);
+        assignRow(row, barista, currentTime, service, overloaded, underutilized);
+        for (int mate : mates) {
+            assignRow(mate, barista, currentTime, service, overloaded, underutilized);
+        }
+        if (admission.isEnabled()) rates.onStarts(SimulationEngine.toMillis(currentTime), mates.length + 1, service);
+        long handsOnTicks = (long) Math.ceil(service * drinkType.handsOnFraction() / SimulationEngine.TICK_MINUTES);
+        long handsFreeAt = SimulationEngine.toMillis(currentTime) + handsOnTicks * SimulationEngine.toMillis(SimulationEngine.TICK_MINUTES);
+        TestBarista.Job job = new TestBarista.Job(row, mates, handsFreeAt, service);
+        barista.getJobs().add(job);
+        barista.setCurrentWorkloadMinutes(barista.getCurrentWorkloadMinutes() + service);
+        return job;
+    }
+
+    /**
+     * Runs the barista's drinks on by {@code minutes}, finishing those with no time left.
+     *
+     * @return how many orders the barista finished
+     */
+    int advance(TestBarista barista, double minutes) {
+        int completed = 0;
+        double workload = 0;
+        for (Iterator<TestBarista.Job> it = barista.getJobs().iterator(); it.hasNext(); ) {
+            TestBarista.Job job = it.next();
+            job.remainingMinutes = Math.max(0, job.remainingMinutes - minutes);
+            if (job.remainingMinutes <= 0) {
+                it.remove();
+                completed += finish(barista, job);
+            } else {
+                workload += job.remainingMinutes;
+            }
+        }
+        barista.setCurrentWorkloadMinutes(workload);
+        return completed;
+    }
+
+    /** @return how many orders the barista finished with the drink started for {@code row} */
+    int complete(TestBarista barista, int row) {
+        for (Iterator<TestBarista.Job> it = barista.getJobs().iterator(); it.hasNext(); ) {
+            TestBarista.Job job = it.next();
+            if (job.row == row) {
+                it.remove();
+                return finish(barista, job);
+            }
+        }
+        return 0;
+    }
+
+    private int finish(TestBarista barista, TestBarista.Job job) {
+        completeRow(job.row, barista);
+        for (int mate : job.batchRows) completeRow(mate, barista);
+        barista.setTotalBusyTimeMinutes(barista.getTotalBusyTimeMinutes() + orders.serviceMinutes(job.row));
+        if (prepTimeModel != null) {
+            double single = orders.serviceMinutes(job.row) / batching.batchMinutes(1, job.batchRows.length + 1);
+            prepTimeModel.record(barista.getId(), orders.drinkType(job.row), single);
+        }
+        return job.batchRows.length + 1;
+    }
+
+    private void assignRow(int row, TestBarista barista, double currentTime, double service,
+                           boolean overloaded, boolean underutilized) {
+        queue.remove(row);
+        table.setAssignedMillis(row, SimulationEngine.toMillis(currentTime));
+        orders.assign(row, barista.getId(), currentTime, service, table.priority(row), overloaded, underutilized);
+        fairness.onOrderAssigned(row);
+    }
+
+    private void completeRow(int row, TestBarista barista) {
+        orders.complete(row);
+        barista.setOrdersCompleted(barista.getOrdersCompleted() + 1);
+        barista.setTotalWaitTimeMinutes(barista.getTotalWaitTimeMinutes() + orders.waitMinutes(row));
+    }
+
+    PrepTimes prepTimes(List<TestBarista> free) {
+        if (prepTimeModel == null) return PrepTimes.nominal(table);
+        long[] ids = free.stream().mapToLong(TestBarista::getId).toArray();
+        boolean uniform = prepTimeModel.sameForAll(ids);
+        return new PrepTimes() {
+            @Override
+            public double minutes(int barista, int row) {
+                return prepTimeModel.estimateMinutes(ids[barista], orders.drinkType(row));
+            }
+
+            @Override
+            public boolean uniform() {
+                return uniform;
+            }
+        };
+    }
+}
@@ -1,46 +1,53 @@
 package com.coffeeshop.simulation;
 
+import com.coffeeshop.model.DrinkType;
+import com.coffeeshop.scheduling.AdmissionPolicy;
+import com.coffeeshop.scheduling.OrderTable;
+import com.coffeeshop.scheduling.DrinkBatching;
+import com.coffeeshop.scheduling.PrepTimeModel;
+import com.coffeeshop.scheduling.QueueView;
+import com.coffeeshop.scheduling.RowList;
+import com.coffeeshop.scheduling.RowQueue;
+import com.coffeeshop.scheduling.SchedulingPolicy;
+import com.coffeeshop.scheduling.WeightedPrioritySchedulingPolicy;
 import lombok.Builder;
 import lombok.Data;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 public class SimulationEngine {
 
     private static final int NUM_TEST_CASES = 10;
     private static final int ORDERS_PER_CASE = 250;
-    private static final int NUM_BARISTAS = 3;
-    private static final double SIM_END_MINUTES = 180;
-    private static final double TICK_MINUTES = 0.5;
+    static final int NUM_BARISTAS = 3;
+    static final double SIM_END_MINUTES = 180;
+    static final double TICK_MINUTES = 0.5;
     private static final double SCHEDULER_INTERVAL = 0.5;
+    private static final long MINUTE_MILLIS = 60_000;
 
-    private static final int[] PREP_TIMES = {1, 2, 2, 4, 4, 6};
-    private static final int[] COMPLEXITY_SCORES = {100, 80, 80, 40, 40, 0};
+    private static final DrinkType[] DRINKS = DrinkType.values();
     private static final int[] DRINK_WEIGHTS = {25, 20, 15, 20, 12, 8};
 
-    public static List<TestOrder> generateOrders(int testCaseSeed) {
+    public static SimulatedOrders generateOrders(int testCaseSeed) {
+        return generateOrders(testCaseSeed, ORDERS_PER_CASE);
+    }
+
+    public static SimulatedOrders generateOrders(int testCaseSeed, int count) {
+        return generateOrders(testCaseSeed, count, 1.4);
+    }
+
+    public static SimulatedOrders generateOrders(int testCaseSeed, int count, double lambda) {
         Random r = new Random(testCaseSeed);
-        List<TestOrder> orders = new ArrayList<>();
+        SimulatedOrders orders = new SimulatedOrders(count);
         double time = 0;
-        double lambda = 1.4;
-        for (int i = 0; i < ORDERS_PER_CASE; i++) {
+        for (int i = 0; i < count; i++) {
             double u = Math.max(1e-10, 1 - r.nextDouble());
             double interArrival = -Math.log(u) / lambda;
             time += interArrival;
-            int idx = pickWeightedIndex(r);
-            int prepTime = PREP_TIMES[idx];
-            int complexity = COMPLEXITY_SCORES[idx];
+            DrinkType drinkType = DRINKS[pickWeightedIndex(r)];
             int loyalty = r.nextDouble() < 0.2 ? 15 : 0;
-            TestOrder o = TestOrder.builder()
-                    .id(i + 1)
-                    .arrivalTimeMinutes(time)
-                    .prepTimeMinutes(prepTime)
-                    .complexityScore(complexity)
-                    .loyaltyBoost(loyalty)
-                    .status("QUEUED")
-                    .build();
-            orders.add(o);
+            orders.add(time, drinkType, loyalty);
         }
         return orders;
     }
@@ -57,108 +64,175 @@ public class SimulationEngine {
         return DRINK_WEIGHTS.length - 1;
     }
 
-    public static TestCaseResult runSingleTestCase(int testCaseIndex, List<TestOrder> orders) {
+    public static TestCaseResult runSingleTestCase(int testCaseIndex, SimulatedOrders orders) {
+        return runSingleTestCase(testCaseIndex, orders, WeightedPrioritySchedulingPolicy.defaults());
+    }
+
+    public static TestCaseResult runSingleTestCase(int testCaseIndex, SimulatedOrders orders, SchedulingPolicy policy) {
+        return runSingleTestCase(testCaseIndex, orders, policy, baristas(NUM_BARISTAS), null, DrinkBatching.disabled());
+    }
+
+    /**
+     * @param prepTimeModel learns each barista's prep times and routes orders by them, or
+     *                      {@code null} to route by nominal prep times
+     */
+    public static TestCaseResult runSingleTestCase(int testCaseIndex, SimulatedOrders orders, SchedulingPolicy policy,
+                                                   List<TestBarista> baristas, PrepTimeModel prepTimeModel,
+                                                   DrinkBatching batching) {
+        return runSingleTestCase(testCaseIndex, orders, policy, baristas, prepTimeModel, batching, AdmissionPolicy.disabled());
+    }
+
+    /** @param admission decides which arriving orders to queue and which to shed */
+    public static TestCaseResult runSingleTestCase(int testCaseIndex, SimulatedOrders orders, SchedulingPolicy policy,
+                                                   List<TestBarista> baristas, PrepTimeModel prepTimeModel,
+                                                   DrinkBatching batching, AdmissionPolicy admission) {
         int alertsSent = 0;
         int emergencyBoostsApplied = 0;
 
-        List<TestBarista> baristas = new ArrayList<>();
-        for (int i = 1; i <= NUM_BARISTAS; i++) {
-            baristas.add(TestBarista.builder().id(i).name("Barista " + i).build());
-        }
-
-        List<TestOrder> queued = new ArrayList<>();
+        SimulatedQueue sim = new SimulatedQueue(orders, prepTimeModel, batching, admission);
+        OrderTable table = sim.table;
+        RowQueue queue = sim.queue;
+        int nextArrival = 0;
+        int completedCount = 0;
         double currentTime = 0;
         double nextSchedulerTime = 0;
 
         while (currentTime < SIM_END_MINUTES) {
             for (TestBarista b : baristas) {
-                if (b.getCurrentOrder() != null) {
-                    double remaining = b.getCurrentWorkloadMinutes() - TICK_MINUTES;
-                    b.setCurrentWorkloadMinutes(Math.max(0, remaining));
-                    if (b.getCurrentWorkloadMinutes() <= 0) {
-                        TestOrder done = b.getCurrentOrder();
-                        done.setStatus("COMPLETED");
-                        done.setCompletionTime(currentTime);
-                        b.setCurrentOrder(null);
-                        b.setOrdersCompleted(b.getOrdersCompleted() + 1);
-                        double wait = done.getWaitTimeMinutes();
-                        b.setTotalWaitTimeMinutes(b.getTotalWaitTimeMinutes() + Math.max(0, wait));
-                        b.setTotalBusyTimeMinutes(b.getTotalBusyTimeMinutes() + done.getPrepTimeMinutes());
-                    }
-                }
+                if (b.hasOrder()) completedCount += sim.advance(b, TICK_MINUTES);
             }
 
-            for (TestOrder o : orders) {
-                if (o.getStatus().equals("QUEUED") && o.getArrivalTimeMinutes() <= currentTime) {
-                    if (!queued.contains(o)) queued.add(o);
-                }
+            while (nextArrival < sim.arrivalOrder.length
+                    && orders.arrivalMinutes(sim.arrivalOrder[nextArrival]) <= currentTime) {
+                sim.admit(sim.arrivalOrder[nextArrival++], baristas, toMillis(currentTime));
             }
-            queued.removeIf(o -> !o.getStatus().equals("QUEUED"));
 
             if (currentTime >= nextSchedulerTime) {
                 nextSchedulerTime = currentTime + SCHEDULER_INTERVAL;
                 WorkloadAnalyzer.updateWorkloadRatios(baristas);
+                long now = toMillis(currentTime);
 
-                for (TestOrder o : queued) {
-                    if (PriorityCalculator.isEmergencyBoost(o, currentTime) && !o.isEmergencyBoostCounted()) {
-                        o.setEmergencyBoostCounted(true);
+                RowList byArrival = queue.rowsByArrival();
+                for (int i = 0; i < byArrival.size(); i++) {
+                    int row = byArrival.row(i);
+                    if (policy.isUrgent(policy.waitMinutes(table, row, now)) && orders.markEmergencyBoostCounted(row)) {
                         emergencyBoostsApplied++;
                     }
-                    double score = PriorityCalculator.calculate(o, currentTime);
-                    o.setPriorityScore(score);
+                    queue.reprioritize(row, policy.priority(table, row, now));
                 }
-                queued.sort(Comparator.comparingDouble(TestOrder::getPriorityScore).reversed()
-                        .thenComparingDouble(TestOrder::getArrivalTimeMinutes));
 
-                for (TestOrder o : queued) {
-                    if (ManagerAlertService.checkAndAlert(o, currentTime)) alertsSent++;
+                List<TestBarista> free = queue.isEmpty() ? List.of() : available(baristas, now);
+                if (!free.isEmpty()) {
+                    int[] rows = policy.selectBatch(table, queue, workloadRatios(free), sim.prepTimes(free), now);
+                    for (int i = 0; i < rows.length; i++) {
+                        if (rows[i] != QueueView.NONE) sim.assign(rows[i], rows, free.get(i), currentTime);
+                    }
                 }
 
-                for (TestBarista b : baristas) {
-                    if (!b.isAvailable() || queued.isEmpty()) continue;
-
-                    TestOrder next = selectNextOrder(queued, b, currentTime);
-                    if (next == null) continue;
-
-                    assignOrder(next, b, currentTime);
-                    queued.remove(next);
-                    FairnessTracker.onOrderAssigned(next, queued);
+                TestBarista avail;
+                while (!queue.isEmpty()
+                        && policy.shouldForceAssign(policy.waitMinutes(table, queue.oldest(), now))
+                        && (avail = firstAvailable(baristas, now)) != null) {
+                    sim.assign(queue.oldest(), TestBarista.NO_BATCH, avail, currentTime);
                 }
 
-                for (Iterator<TestOrder> it = queued.iterator(); it.hasNext(); ) {
-                    TestOrder o = it.next();
-                    if (PriorityCalculator.shouldForceAssign(o, currentTime)) {
-                        TestBarista avail = baristas.stream().filter(TestBarista::isAvailable).findFirst().orElse(null);
-                        if (avail != null) {
-                            assignOrder(o, avail, currentTime);
-                            it.remove();
-                            FairnessTracker.onOrderAssigned(o, queued);
-                        }
-                    }
+                for (int i = 0; i < byArrival.size(); i++) {
+                    int row = byArrival.row(i);
+                    if (!policy.shouldAlert(policy.waitMinutes(table, row, now))) break;
+                    if (orders.markAlertSent(row)) alertsSent++;
                 }
             }
 
             currentTime += TICK_MINUTES;
 
-            long completed = orders.stream().filter(o -> o.getStatus().equals("COMPLETED")).count();
-            if (completed == orders.size()) break;
+            if (completedCount + sim.shedCount == orders.size()) break;
+        }
+
+        return summarize(testCaseIndex, orders, baristas, sim.fairness, alertsSent, emergencyBoostsApplied);
+    }
+
+    public static List<TestBarista> baristas(int count) {
+        return baristas(count, 1);
+    }
+
+    /** Baristas who each keep up to {@code slots} drinks in flight. */
+    public static List<TestBarista> baristas(int count, int slots) {
+        List<TestBarista> baristas = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            baristas.add(TestBarista.builder().id(i).name("Barista " + i).slots(slots).build());
+        }
+        return baristas;
+    }
+
+    /**
+     * Baristas who differ on espresso drinks: the first takes half the nominal time over them, the
+     * second the nominal time, the third half as long again, and so on round the team. Cold brew
+     * takes everyone the nominal time.
+     */
+    public static List<TestBarista> mixedSkillTeam(int count) {
+        double[] espressoFactors = {0.5, 1.0, 1.5};
+        List<TestBarista> baristas = baristas(count);
+        for (int i = 0; i < count; i++) {
+            double[] factors = new double[DRINKS.length];
+            Arrays.fill(factors, espressoFactors[i % espressoFactors.length]);
+            factors[DrinkType.COLD_BREW.ordinal()] = 1.0;
+            baristas.get(i).setPrepTimeFactors(factors);
+        }
+        return baristas;
+    }
+
+    static List<TestBarista> available(List<TestBarista> baristas, long nowMillis) {
+        List<TestBarista> free = new ArrayList<>();
+        for (TestBarista b : baristas) {
+            if (b.isAvailable(nowMillis)) free.add(b);
         }
+        return free;
+    }
 
-        List<TestOrder> completed = orders.stream().filter(o -> o.getStatus().equals("COMPLETED")).collect(Collectors.toList());
+    static double[] workloadRatios(List<TestBarista> baristas) {
+        double[] ratios = new double[baristas.size()];
+        for (int i = 0; i < ratios.length; i++) ratios[i] = baristas.get(i).getWorkloadRatio();
+        return ratios;
+    }
+
+    static TestBarista firstAvailable(List<TestBarista> baristas, long nowMillis) {
+        for (TestBarista b : baristas) {
+            if (b.isAvailable(nowMillis)) return b;
+        }
+        return null;
+    }
+
+    static long toMillis(double minutes) {
+        return (long) (minutes * MINUTE_MILLIS);
+    }
+
+    static double toMinutes(long millis) {
+        return millis / (double) MINUTE_MILLIS;
+    }
+
+    static TestCaseResult summarize(int testCaseIndex, SimulatedOrders orders, List<TestBarista> baristas,
+                                    FairnessTracker fairness, int alertsSent, int emergencyBoostsApplied) {
+        int completed = 0;
         double avgWait = 0;
         double maxWait = 0;
         int ordersExceeded10Min = 0;
-        for (TestOrder o : completed) {
-            double wait = o.getWaitTimeMinutes();
+        int ordersShed = 0;
+        int ordersQuoted = 0;
+        for (int row = 0; row < orders.size(); row++) {
+            if (orders.isShed(row)) ordersShed++;
+            if (orders.isWaitQuoted(row)) ordersQuoted++;
+            if (!orders.isCompleted(row)) continue;
+            completed++;
+            double wait = orders.waitMinutes(row);
             avgWait += wait;
             if (wait > maxWait) maxWait = wait;
             if (wait > 10) ordersExceeded10Min++;
         }
-        if (!completed.isEmpty()) avgWait /= completed.size();
+        if (completed > 0) avgWait /= completed;
 
-        double timeoutRate = completed.isEmpty() ? 0 : Math.min(1.0, Math.max(0, (double) ordersExceeded10Min / completed.size()));
+        double timeoutRate = completed == 0 ? 0 : Math.min(1.0, Math.max(0, (double) ordersExceeded10Min / completed));
 
-        int fairnessViolations = FairnessTracker.countFairnessViolations(orders);
+        int fairnessViolations = fairness.countFairnessViolations();
         double balancePct = WorkloadAnalyzer.computeBalancePercentageFromCompleted(baristas);
 
         alertsSent = Math.min(alertsSent, orders.size());
@@ -186,56 +260,41 @@ public class SimulationEngine {
                 .alertsSentToManager(alertsSent)
                 .ordersExceeded10Min(ordersExceeded10Min)
                 .workloadBalancePercentage(balancePct)
-                .totalCompleted(completed.size())
+                .totalCompleted(completed)
+                .ordersShed(ordersShed)
+                .ordersQuoted(ordersQuoted)
                 .perBarista(perBarista)
                 .build();
     }
 
-    private static TestOrder selectNextOrder(List<TestOrder> queue, TestBarista barista, double currentTime) {
-        if (queue.isEmpty()) return null;
+    public static SimulationResult runMonteCarlo() {
+        return runMonteCarlo(NUM_TEST_CASES, MonteCarloRunner.parallel());
+    }
 
-        TestOrder emergency = queue.stream().filter(o -> PriorityCalculator.shouldForceAssign(o, currentTime)).findFirst().orElse(null);
-        if (emergency != null) return emergency;
 
-        if (WorkloadAnalyzer.isOverloaded(barista)) {
-            return queue.stream().min(Comparator.comparingInt(TestOrder::getPrepTimeMinutes)
-                    .thenComparing((a, b) -> Double.compare(b.getPriorityScore(), a.getPriorityScore())))
-                    .orElse(queue.get(0));
-        }
-        if (WorkloadAnalyzer.isUnderutilized(barista)) {
-            return queue.stream().max(Comparator.comparingDouble(TestOrder::getPriorityScore)
-                    .thenComparingDouble(TestOrder::getArrivalTimeMinutes))
-                    .orElse(queue.get(0));
-        }
-        return queue.stream().max(Comparator.comparingDouble(TestOrder::getPriorityScore)
-                .thenComparingDouble(TestOrder::getArrivalTimeMinutes))
-                .orElse(queue.get(0));
+    public static SimulationResult runMonteCarlo(int numTestCases, MonteCarloRunner runner) {
+        return runMonteCarlo(numTestCases, runner, () -> baristas(NUM_BARISTAS), false, DrinkBatching.disabled());
     }
 
-    private static void assignOrder(TestOrder order, TestBarista barista, double currentTime) {
-        order.setStatus("PREPARING");
-        order.setBaristaId(barista.getId());
-        order.setAssignmentTime(currentTime);
-        double wait = Math.max(0, currentTime - order.getArrivalTimeMinutes());
-        order.setWaitTimeMinutes(wait);
-        StringBuilder reason = new StringBuilder();
-        if (wait >= 9.5) reason.append("EMERGENCY: Approaching 10-min timeout. ");
-        else if (wait >= 8) reason.append("Urgency: Wait >8 min. ");
-        if (WorkloadAnalyzer.isOverloaded(barista)) reason.append("Short order for overloaded barista. ");
-        else if (WorkloadAnalyzer.isUnderutilized(barista)) reason.append("Complex order for underutilized barista. ");
-        reason.append(String.format("Priority=%.1f, Wait=%.1f min.", order.getPriorityScore(), wait));
-        order.setAssignmentReason(reason.toString());
-        barista.setCurrentOrder(order);
-        barista.setCurrentWorkloadMinutes(order.getPrepTimeMinutes());
+    /**
+     * Offline runs with the team {@code team} builds. With {@code learnPrepTimes} each run starts
+     * from nominal prep times and routes orders by what it has learned of each barista so far;
+     * without, it routes by nominal times throughout, which is the baseline to compare against.
+     * {@code batching} decides which same-drink orders are made together.
+     */
+    public static SimulationResult runMonteCarlo(int numTestCases, MonteCarloRunner runner,
+                                                 Supplier<List<TestBarista>> team, boolean learnPrepTimes,
+                                                 DrinkBatching batching) {
+        return runMonteCarlo(numTestCases, runner, team, learnPrepTimes, batching, AdmissionPolicy.disabled());
     }
 
-    public static SimulationResult runMonteCarlo() {
-        List<TestCaseResult> results = new ArrayList<>();
-        for (int i = 0; i < NUM_TEST_CASES; i++) {
-            List<TestOrder> orders = generateOrders(i);
-            TestCaseResult r = runSingleTestCase(i + 1, orders);
-            results.add(r);
-        }
+    public static SimulationResult runMonteCarlo(int numTestCases, MonteCarloRunner runner,
+                                                 Supplier<List<TestBarista>> team, boolean learnPrepTimes,
+                                                 DrinkBatching batching, AdmissionPolicy admission) {
+        List<TestCaseResult> results = runner.run(numTestCases,
+                seed -> DiscreteEventSimulationEngine.runSingleTestCase(seed + 1, generateOrders(seed), team.get(),
+                        SIM_END_MINUTES, WeightedPrioritySchedulingPolicy.defaults(),
+                        learnPrepTimes ? PrepTimeModel.defaults() : null, batching, admission));
 
         double avgWaitOverall = results.stream().mapToDouble(TestCaseResult::getAvgWaitTimeMinutes).average().orElse(0);
         double avgTimeoutRate = Math.min(1.0, Math.max(0,
@@ -244,13 +303,14 @@ public class SimulationEngine {
         int totalFairnessViolations = results.stream().mapToInt(TestCaseResult::getFairnessViolations).sum();
         int totalAlerts = results.stream().mapToInt(TestCaseResult::getAlertsSentToManager).sum();
         int totalOrdersExceeded10Min = results.stream().mapToInt(TestCaseResult::getOrdersExceeded10Min).sum();
+        int totalOrdersShed = results.stream().mapToInt(TestCaseResult::getOrdersShed).sum();
 
-        int totalOrdersAllRuns = NUM_TEST_CASES * ORDERS_PER_CASE;
+        int totalOrdersAllRuns = numTestCases * ORDERS_PER_CASE;
         totalAlerts = Math.min(totalAlerts, totalOrdersAllRuns);
         totalOrdersExceeded10Min = Math.min(totalOrdersExceeded10Min, totalOrdersAllRuns);
 
         return SimulationResult.builder()
-                .numTestCases(NUM_TEST_CASES)
+                .numTestCases(numTestCases)
                 .ordersPerCase(ORDERS_PER_CASE)
                 .avgWaitTimeMinutes(avgWaitOverall)
                 .avgTimeoutRate(avgTimeoutRate)
@@ -258,12 +318,60 @@ public class SimulationEngine {
                 .totalFairnessViolations(totalFairnessViolations)
                 .totalAlertsSentToManager(totalAlerts)
                 .totalOrdersExceeded10Min(totalOrdersExceeded10Min)
+                .totalOrdersShed(totalOrdersShed)
                 .targetAvgWaitVsFifo("Target ~4.8 min vs FIFO 6.2 min")
                 .targetTimeoutRate("Target ~2.3%")
                 .results(results)
                 .build();
     }
 
+    /**
+     * Runs {@code runsPerRate} cases at each arrival rate in {@code lambdas}, once with
+     * {@code admission} and once queueing every order, to show the rate at which the store starts
+     * shedding and what shedding buys the orders it keeps.
+     */
+    public static List<AdmissionSweepPoint> sweepArrivalRates(double[] lambdas, int runsPerRate, MonteCarloRunner runner,
+                                                              Supplier<List<TestBarista>> team, DrinkBatching batching,
+                                                              AdmissionPolicy admission) {
+        List<AdmissionSweepPoint> points = new ArrayList<>();
+        for (double lambda : lambdas) {
+            List<TestCaseResult> admitted = runAtRate(lambda, runsPerRate, runner, team, batching, admission);
+            List<TestCaseResult> unbounded = runAtRate(lambda, runsPerRate, runner, team, batching, AdmissionPolicy.disabled());
+            double offered = 0;
+            for (int seed = 0; seed < runsPerRate; seed++) {
+                offered += arrivalsBefore(generateOrders(seed, ORDERS_PER_CASE, lambda), SIM_END_MINUTES);
+            }
+            points.add(AdmissionSweepPoint.builder()
+                    .lambda(lambda)
+                    .shedRate(admitted.stream().mapToInt(TestCaseResult::getOrdersShed).sum() / offered)
+                    .quotedRate(admitted.stream().mapToInt(TestCaseResult::getOrdersQuoted).sum() / offered)
+                    .avgWaitTimeMinutes(admitted.stream().mapToDouble(TestCaseResult::getAvgWaitTimeMinutes).average().orElse(0))
+                    .timeoutRate(admitted.stream().mapToDouble(TestCaseResult::getTimeoutRate).average().orElse(0))
+                    .completedRate(admitted.stream().mapToInt(TestCaseResult::getTotalCompleted).sum() / offered)
+                    .avgWaitWithoutAdmission(unbounded.stream().mapToDouble(TestCaseResult::getAvgWaitTimeMinutes).average().orElse(0))
+                    .timeoutRateWithoutAdmission(unbounded.stream().mapToDouble(TestCaseResult::getTimeoutRate).average().orElse(0))
+                    .completedRateWithoutAdmission(unbounded.stream().mapToInt(TestCaseResult::getTotalCompleted).sum() / offered)
+                    .build());
+        }
+        return points;
+    }
+
+    private static int arrivalsBefore(SimulatedOrders orders, double minutes) {
+        int n = 0;
+        for (int row = 0; row < orders.size(); row++) {
+            if (orders.arrivalMinutes(row) < minutes) n++;
+        }
+        return n;
+    }
+
+    private static List<TestCaseResult> runAtRate(double lambda, int runs, MonteCarloRunner runner,
+                                                  Supplier<List<TestBarista>> team, DrinkBatching batching,
+                                                  AdmissionPolicy admission) {
+        return runner.run(runs, seed -> DiscreteEventSimulationEngine.runSingleTestCase(seed + 1,
+                generateOrders(seed, ORDERS_PER_CASE, lambda), team.get(), SIM_END_MINUTES,
+                WeightedPrioritySchedulingPolicy.defaults(), null, batching, admission));
+    }
+
     @Data
     @Builder
     public static class TestCaseResult {
@@ -277,6 +385,8 @@ public class SimulationEngine {
         private int ordersExceeded10Min;
         private double workloadBalancePercentage;
         private int totalCompleted;
+        private int ordersShed;
+        private int ordersQuoted;
         private Map<String, Object> perBarista;
     }
 
@@ -291,8 +401,27 @@ public class SimulationEngine {
         private int totalFairnessViolations;
         private int totalAlertsSentToManager;
         private int totalOrdersExceeded10Min;
+        private int totalOrdersShed;
         private String targetAvgWaitVsFifo;
         private String targetTimeoutRate;
         private List<TestCaseResult> results;
     }
+
+    /**
+     * One arrival rate of {@link #sweepArrivalRates}. Rates are shares of the orders that arrived
+     * within the run; waits and timeouts are over the orders completed within it.
+     */
+    @Data
+    @Builder
+    public static class AdmissionSweepPoint {
+        private double lambda;
+        private double shedRate;
+        private double quotedRate;
+        private double avgWaitTimeMinutes;
+        private double timeoutRate;
+        private double completedRate;
+        private double avgWaitWithoutAdmission;
+        private double timeoutRateWithoutAdmission;
+        private double completedRateWithoutAdmission;
+    }
 }
@@ -1,5 +1,6 @@
 package com.coffeeshop.simulation;
 
+import com.coffeeshop.model.DrinkType;
 import lombok.*;
 
 import java.util.ArrayList;
@@ -20,10 +21,50 @@ public class TestBarista {
     @Builder.Default private double totalBusyTimeMinutes = 0;
     @Builder.Default private int ordersCompleted = 0;
 
+    /** Multiplier on each drink's nominal prep time, by {@link DrinkType} ordinal; {@code null} for nominal times throughout. */
+    private double[] prepTimeFactors;
+
+    /** Drinks the barista can have in flight at once, one of them hands-on at a time. */
+    @Builder.Default
+    private int slots = 1;
+
+    public static final int[] NO_BATCH = new int[0];
+
     @Builder.Default
-    private TestOrder currentOrder = null;
+    @Getter(AccessLevel.PACKAGE)
+    @Setter(AccessLevel.NONE)
+    private List<Job> jobs = new ArrayList<>();
+
+    public boolean hasOrder() {
+        return !jobs.isEmpty();
+    }
+
+    /** A free slot, and hands free of every drink in flight by {@code nowMillis}. */
+    public boolean isAvailable(long nowMillis) {
+        if (jobs.size() >= slots) return false;
+        for (Job job : jobs) {
+            if (job.handsFreeAt > nowMillis) return false;
+        }
+        return true;
+    }
+
+    public double prepMinutes(DrinkType drinkType) {
+        double nominal = drinkType.getPrepTimeMinutes();
+        return prepTimeFactors == null ? nominal : nominal * prepTimeFactors[drinkType.ordinal()];
+    }
+
+    /** One drink in flight: {@code row} and any batch mates, made together. */
+    static final class Job {
+        final int row;
+        final int[] batchRows;
+        final long handsFreeAt;
+        double remainingMinutes;
 
-    public boolean isAvailable() {
-        return currentWorkloadMinutes <= 0;
+        Job(int row, int[] batchRows, long handsFreeAt, double remainingMinutes) {
+            this.row = row;
+            this.batchRows = batchRows;
+            this.handsFreeAt = handsFreeAt;
+            this.remainingMinutes = remainingMinutes;
+        }
     }
 }
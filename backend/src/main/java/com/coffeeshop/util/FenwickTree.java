@@ -0,0 +1,56 @@
+package com.coffeeshop.util;
+
+import java.util.Arrays;
+
+public final class FenwickTree {
+
+    private int[] tree;
+    private int total;
+
+    public FenwickTree() {
+        this(16);
+    }
+
+    public FenwickTree(int capacity) {
+        this.tree = new int[Integer.highestOneBit(Math.max(1, capacity - 1)) * 2 + 1];
+    }
+
+    public void add(int index, int delta) {
+        while (index + 1 >= tree.length) {
+            grow();
+        }
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+        total += delta;
+    }
+
+
+    public int prefixSum(int index) {
+        int sum = 0;
+        for (int i = Math.min(index + 1, tree.length - 1); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+
+    public int suffixSum(int fromIndex) {
+        return fromIndex <= 0 ? total : total - prefixSum(fromIndex - 1);
+    }
+
+    public int total() {
+        return total;
+    }
+
+    public void clear() {
+        Arrays.fill(tree, 0);
+        total = 0;
+    }
+
+    private void grow() {
+        int capacity = tree.length - 1;
+        tree = Arrays.copyOf(tree, capacity * 2 + 1);
+        tree[capacity * 2] = tree[capacity];
+    }
+}
@@ -0,0 +1,75 @@
+package com.coffeeshop.util;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded multi-producer, single-consumer queue. Producers claim a slot with one CAS and never
+ * block; each slot's sequence number tells the consumer when the element is published and tells
+ * producers when the slot is free again. {@link #poll} and {@link #drainTo} must only be called by
+ * one thread at a time.
+ */
+public final class MpscRingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    public MpscRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+    }
+
+    public boolean offer(T item) {
+        while (true) {
+            long t = tail.get();
+            int i = (int) t & mask;
+            long seq = sequences.get(i);
+            if (seq == t) {
+                if (tail.compareAndSet(t, t + 1)) {
+                    slots.set(i, item);
+                    sequences.set(i, t + 1);
+                    return true;
+                }
+            } else if (seq < t) {
+                return false;
+            }
+        }
+    }
+
+    public T poll() {
+        long h = head;
+        int i = (int) h & mask;
+        if (sequences.get(i) != h + 1) return null;
+        T item = slots.get(i);
+        slots.set(i, null);
+        sequences.set(i, h + mask + 1);
+        head = h + 1;
+        return item;
+    }
+
+    public int drainTo(Collection<? super T> out) {
+        int n = 0;
+        T item;
+        while ((item = poll()) != null) {
+            out.add(item);
+            n++;
+        }
+        return n;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
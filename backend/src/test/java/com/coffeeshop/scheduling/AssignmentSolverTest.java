@@ -0,0 +1,89 @@
+package com.coffeeshop.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class AssignmentSolverTest {
+
+    @Test
+    void matchesBruteForceOnSmallMatrices() {
+        Random random = new Random(42);
+        for (int rows = 1; rows <= 5; rows++) {
+            for (int cols = 1; cols <= 5; cols++) {
+                for (int trial = 0; trial < 20; trial++) {
+                    double[][] cost = new double[rows][cols];
+                    for (double[] row : cost) {
+                        for (int j = 0; j < cols; j++) row[j] = random.nextDouble() * 10 - 5;
+                    }
+                    assertOptimal(cost);
+                }
+            }
+        }
+    }
+
+    @Test
+    void handlesTies() {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 50; trial++) {
+            int rows = 1 + random.nextInt(5);
+            int cols = 1 + random.nextInt(5);
+            double[][] cost = new double[rows][cols];
+            for (double[] row : cost) {
+                for (int j = 0; j < cols; j++) row[j] = random.nextInt(3);
+            }
+            assertOptimal(cost);
+        }
+        assertOptimal(new double[][] {{1, 1, 1}, {1, 1, 1}});
+        assertOptimal(new double[][] {{1, 1}, {1, 1}, {1, 1}});
+    }
+
+    @Test
+    void leavesOutTheDearestRowsWhenThereAreMoreRowsThanColumns() {
+        int[] colByRow = AssignmentSolver.solve(new double[][] {{5}, {1}, {3}});
+
+        assertThat(colByRow).containsExactly(AssignmentSolver.UNASSIGNED, 0, AssignmentSolver.UNASSIGNED);
+    }
+
+    @Test
+    void solvesAnEmptyMatrix() {
+        assertThat(AssignmentSolver.solve(new double[0][0])).isEmpty();
+    }
+
+    private static void assertOptimal(double[][] cost) {
+        int rows = cost.length;
+        int cols = cost[0].length;
+        int[] colByRow = AssignmentSolver.solve(cost);
+
+        assertThat(colByRow).hasSize(rows);
+        boolean[] taken = new boolean[cols];
+        int assigned = 0;
+        double total = 0;
+        for (int i = 0; i < rows; i++) {
+            if (colByRow[i] == AssignmentSolver.UNASSIGNED) continue;
+            assertThat(taken[colByRow[i]]).as("column %d matched twice", colByRow[i]).isFalse();
+            taken[colByRow[i]] = true;
+            total += cost[i][colByRow[i]];
+            assigned++;
+        }
+        assertThat(assigned).isEqualTo(Math.min(rows, cols));
+        assertThat(total).isCloseTo(bruteForce(cost, 0, new boolean[cols], rows - Math.min(rows, cols)), within(1e-9));
+    }
+
+    /** Cheapest way to match rows {@code row..} to free columns, leaving out at most {@code skips} of them. */
+    private static double bruteForce(double[][] cost, int row, boolean[] taken, int skips) {
+        if (row == cost.length) return 0;
+        double best = Double.POSITIVE_INFINITY;
+        if (skips > 0) best = bruteForce(cost, row + 1, taken, skips - 1);
+        for (int j = 0; j < taken.length; j++) {
+            if (taken[j]) continue;
+            taken[j] = true;
+            best = Math.min(best, cost[row][j] + bruteForce(cost, row + 1, taken, skips));
+            taken[j] = false;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,41 @@
+package com.coffeeshop.service;
+
+import com.coffeeshop.event.OrderChangedEvent;
+import com.coffeeshop.event.SchedulerTickEvent;
+import com.coffeeshop.model.DrinkType;
+import com.coffeeshop.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class QueueEventBroadcasterTest {
+
+    private final OrderService orderService = mock(OrderService.class);
+    private final Queue<Runnable> deliveries = new ArrayDeque<>();
+    private final QueueEventBroadcaster broadcaster =
+        new QueueEventBroadcaster(orderService, mock(MetricsService.class), mock(QueueEtaEngine.class),
+            deliveries::add, 2);
+
+    @Test
+    void publishingOnlyQueuesDeliveryAndDropsAClientThatFallsBehind() {
+        broadcaster.subscribe(Order.DEFAULT_STORE_ID);
+        assertThat(deliveries).hasSize(1);
+
+        broadcaster.onSchedulerTick(new SchedulerTickEvent(Order.DEFAULT_STORE_ID, Instant.now()));
+        assertThat(deliveries).hasSize(2);
+
+        Order order = Order.builder().id(1L).drinkType(DrinkType.LATTE).arrivalTime(Instant.now()).build();
+        broadcaster.onOrderChanged(new OrderChangedEvent(order, OrderChangedEvent.Change.ENQUEUED));
+        verify(orderService, never()).toOrderUpdateDTO(any(), any());
+
+        while (!deliveries.isEmpty()) deliveries.poll().run();
+    }
+}
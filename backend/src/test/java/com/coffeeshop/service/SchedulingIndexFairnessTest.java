@@ -0,0 +1,102 @@
+package com.coffeeshop.service;
+
+import com.coffeeshop.model.DrinkType;
+import com.coffeeshop.model.Order;
+import com.coffeeshop.model.OrderStatus;
+import com.coffeeshop.repository.OrderRepository;
+import com.coffeeshop.scheduling.DrinkBatching;
+import com.coffeeshop.scheduling.PrepTimeModel;
+import com.coffeeshop.scheduling.SchedulingPolicy;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SchedulingIndexFairnessTest {
+
+    private static final Instant OPEN = Instant.parse("2026-01-05T08:00:00Z");
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final SchedulingIndex index = new SchedulingIndex(orderRepository, mock(SchedulingPolicy.class),
+        PrepTimeModel.defaults(), DrinkBatching.disabled(), mock(ApplicationEventPublisher.class), Order.DEFAULT_STORE_ID);
+
+    private long nextId = 1;
+
+    @Test
+    void countsOnlyLaterArrivalsServedWhileQueued() {
+        index.ensureLoaded();
+        Order first = enqueue(10, 0);
+        Order third = enqueue(30, 0);
+        index.markAssigned(third);
+
+        Order second = enqueue(20, 0);
+        assertThat(index.laterArrivalsServedFirst(first)).isEqualTo(1);
+        assertThat(index.laterArrivalsServedFirst(second)).isZero();
+
+        Order sixth = enqueue(60, 0);
+        Order fifth = enqueue(50, 0);
+        index.markAssigned(sixth);
+        assertThat(index.laterArrivalsServedFirst(fifth)).isEqualTo(1);
+        assertThat(index.laterArrivalsServedFirst(second)).isEqualTo(1);
+
+        index.markAssigned(fifth);
+        index.markAssigned(enqueue(70, 0));
+        assertThat(index.applyFairnessPenalties(at(70))).containsExactly(first);
+        assertThat(first.getLaterArrivalsServedFirst()).isEqualTo(4);
+        assertThat(index.laterArrivalsServedFirst(second)).isEqualTo(3);
+        assertThat(second.isFairnessPenaltyApplied()).isFalse();
+    }
+
+    @Test
+    void ordersArrivingTogetherDoNotCountEachOther() {
+        index.ensureLoaded();
+        Order first = enqueue(10, 0);
+        Order tied = enqueue(10, 0);
+        index.markAssigned(tied);
+
+        assertThat(index.laterArrivalsServedFirst(first)).isZero();
+    }
+
+    @Test
+    void penalizesReloadedOrderBehindOneStillUnderThreshold() {
+        Order older = order(10, 0);
+        Order younger = order(20, 3);
+        when(orderRepository.findByStoreIdAndStatusOrderByArrivalTimeAsc(anyLong(), eq(OrderStatus.QUEUED)))
+            .thenReturn(List.of(older, younger));
+        index.ensureLoaded();
+
+        index.markAssigned(enqueue(30, 0));
+
+        assertThat(index.applyFairnessPenalties(at(30))).containsExactly(younger);
+        assertThat(younger.getLaterArrivalsServedFirst()).isEqualTo(4);
+        assertThat(index.laterArrivalsServedFirst(older)).isEqualTo(1);
+        assertThat(older.isFairnessPenaltyApplied()).isFalse();
+    }
+
+    private Order enqueue(int second, int laterArrivalsServedFirst) {
+        Order order = order(second, laterArrivalsServedFirst);
+        index.enqueue(order);
+        return order;
+    }
+
+    private Order order(int second, int laterArrivalsServedFirst) {
+        return Order.builder()
+            .id(nextId++)
+            .customerName("c" + nextId)
+            .drinkType(DrinkType.ESPRESSO)
+            .arrivalTime(at(second))
+            .laterArrivalsServedFirst(laterArrivalsServedFirst)
+            .build();
+    }
+
+    private static Instant at(int second) {
+        return OPEN.plusSeconds(second);
+    }
+}
@@ -0,0 +1,34 @@
+package com.coffeeshop.simulation;
+
+import com.coffeeshop.scheduling.DrinkBatching;
+import com.coffeeshop.scheduling.WeightedPrioritySchedulingPolicy;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiscreteEventSimulationEngineTest {
+
+    @Test
+    void matchesTheTickSimulation() {
+        for (int seed = 0; seed < 10; seed++) {
+            SimulationEngine.TestCaseResult tick =
+                SimulationEngine.runSingleTestCase(seed + 1, SimulationEngine.generateOrders(seed));
+            SimulationEngine.TestCaseResult events =
+                DiscreteEventSimulationEngine.runSingleTestCase(seed + 1, SimulationEngine.generateOrders(seed));
+
+            assertThat(events).as("seed %d", seed).isEqualTo(tick);
+        }
+    }
+
+    @Test
+    void matchesTheTickSimulationWithMixedSkillsAndBatching() {
+        DrinkBatching batching = DrinkBatching.defaults();
+        SimulationEngine.TestCaseResult tick = SimulationEngine.runSingleTestCase(1, SimulationEngine.generateOrders(3),
+            WeightedPrioritySchedulingPolicy.defaults(), SimulationEngine.mixedSkillTeam(3), null, batching);
+        SimulationEngine.TestCaseResult events = DiscreteEventSimulationEngine.runSingleTestCase(1,
+            SimulationEngine.generateOrders(3), SimulationEngine.mixedSkillTeam(3), SimulationEngine.SIM_END_MINUTES,
+            WeightedPrioritySchedulingPolicy.defaults(), null, batching);
+
+        assertThat(events).isEqualTo(tick);
+    }
+}
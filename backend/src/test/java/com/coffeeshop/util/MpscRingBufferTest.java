@@ -0,0 +1,44 @@
+package com.coffeeshop.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MpscRingBufferTest {
+
+    @Test
+    void rejectsOffersWhenFullAndAcceptsAgainOnceDrained() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(3);
+        assertThat(buffer.capacity()).isEqualTo(4);
+
+        for (int i = 0; i < 4; i++) assertThat(buffer.offer(i)).isTrue();
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+
+        assertThat(buffer.poll()).isZero();
+        assertThat(buffer.offer(4)).isTrue();
+        assertThat(buffer.offer(5)).isFalse();
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drainTo(drained)).isEqualTo(4);
+        assertThat(drained).containsExactly(1, 2, 3, 4);
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    void keepsOrderAcrossManyWrapsOfTheRing() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        int next = 0;
+        int expected = 0;
+        for (int round = 0; round < 100; round++) {
+            int batch = 1 + round % 4;
+            for (int i = 0; i < batch; i++) assertThat(buffer.offer(next++)).isTrue();
+            for (int i = 0; i < batch; i++) assertThat(buffer.poll()).isEqualTo(expected++);
+        }
+        assertThat(buffer.poll()).isNull();
+    }
+}
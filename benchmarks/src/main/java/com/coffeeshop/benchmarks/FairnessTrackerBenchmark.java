@@ -0,0 +1,65 @@
+package com.coffeeshop.benchmarks;
+
+import com.coffeeshop.scheduling.OrderTable;
+import com.coffeeshop.simulation.FairnessTracker;
+import com.coffeeshop.simulation.SimulatedOrders;
+import com.coffeeshop.simulation.SimulationEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FairnessTracker#onOrderAssigned} over a whole run of {@code queueSize} orders, served in
+ * a shuffled order so the later-arrivals counts and the penalty frontier both see real work.
+ * {@link #track} builds a fresh tracker each time; subtract {@link #trackerOnly} for the cost of
+ * the assignments alone.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FairnessTrackerBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int queueSize;
+
+    private SimulatedOrders orders;
+    private int[] serveOrder;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        orders = SimulationEngine.generateOrders(42, queueSize);
+        serveOrder = new int[queueSize];
+        for (int i = 0; i < queueSize; i++) serveOrder[i] = i;
+        Random r = new Random(7);
+        for (int i = queueSize - 1; i > 0; i--) {
+            int j = r.nextInt(i + 1);
+            int t = serveOrder[i];
+            serveOrder[i] = serveOrder[j];
+            serveOrder[j] = t;
+        }
+    }
+
+    private FairnessTracker newTracker() {
+        orders.reset();
+        return new FairnessTracker(orders, new OrderTable(queueSize));
+    }
+
+    @Benchmark
+    public FairnessTracker trackerOnly() {
+        return newTracker();
+    }
+
+    @Benchmark
+    public int track() {
+        FairnessTracker tracker = newTracker();
+        for (int row : serveOrder) {
+            orders.assign(row, 1, 0, orders.prepMinutes(row), 0, false, false);
+            tracker.onOrderAssigned(row);
+        }
+        return tracker.countFairnessViolations();
+    }
+}
@@ -0,0 +1,147 @@
+package com.coffeeshop.benchmarks;
+
+import com.coffeeshop.CoffeeShopApplication;
+import com.coffeeshop.model.Barista;
+import com.coffeeshop.model.DrinkType;
+import com.coffeeshop.model.LoyaltyStatus;
+import com.coffeeshop.model.Order;
+import com.coffeeshop.model.OrderStatus;
+import com.coffeeshop.repository.AssignmentRepository;
+import com.coffeeshop.repository.BaristaRepository;
+import com.coffeeshop.repository.MetricsRepository;
+import com.coffeeshop.repository.OrderRepository;
+import com.coffeeshop.service.SchedulerService;
+import com.coffeeshop.service.SchedulingPartitions;
+import com.coffeeshop.service.SimulationService;
+import com.coffeeshop.util.PoissonGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SchedulerService#processTick} with the full Spring/JPA stack on an in-memory H2
+ * database. Each iteration starts from {@code queueDepth} waiting orders that arrived within the
+ * last four minutes, then runs {@link #TICKS} scheduler ticks 30 seconds apart, with Poisson
+ * arrivals at {@code lambda} orders/minute between ticks. Four minutes plus {@link #TICKS} ticks
+ * stays under the force-assign threshold, so the queue depth holds for the whole iteration.
+ * The score is the time for all {@link #TICKS} ticks.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = ProcessTickBenchmark.TICKS)
+@Measurement(iterations = 10, batchSize = ProcessTickBenchmark.TICKS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProcessTickBenchmark {
+
+    static final int TICKS = 10;
+
+    private static final Duration TICK = Duration.ofSeconds(30);
+    private static final long SEED_WINDOW_MILLIS = Duration.ofMinutes(4).toMillis();
+    private static final Instant START = Instant.parse("2024-01-01T08:00:00Z");
+    private static final DrinkType[] DRINKS = DrinkType.values();
+
+    @Param({"10", "100", "1000", "10000"})
+    public int queueDepth;
+
+    @Param({"3", "16", "64"})
+    public int baristas;
+
+    @Param({"1.4", "5", "20"})
+    public double lambda;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private BaristaRepository baristaRepository;
+    private AssignmentRepository assignmentRepository;
+    private MetricsRepository metricsRepository;
+    private SchedulingPartitions schedulingPartitions;
+    private SchedulerService schedulerService;
+    private SimulationService simulationService;
+
+    private Random random;
+    private Instant now;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(CoffeeShopApplication.class)
+            .web(WebApplicationType.NONE)
+            .run(
+                "--spring.datasource.url=jdbc:h2:mem:benchmarks;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--coffeeshop.scheduler.interval-seconds=86400",
+                "--coffeeshop.scheduler.reactive=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.coffeeshop=ERROR");
+        orderRepository = context.getBean(OrderRepository.class);
+        baristaRepository = context.getBean(BaristaRepository.class);
+        assignmentRepository = context.getBean(AssignmentRepository.class);
+        metricsRepository = context.getBean(MetricsRepository.class);
+        schedulingPartitions = context.getBean(SchedulingPartitions.class);
+        schedulerService = context.getBean(SchedulerService.class);
+        simulationService = context.getBean(SimulationService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void seedQueue() {
+        random = new Random(42);
+        now = START;
+        schedulingPartitions.invalidateAll();
+        assignmentRepository.deleteAllInBatch();
+        metricsRepository.deleteAllInBatch();
+        orderRepository.deleteAllInBatch();
+        baristaRepository.deleteAllInBatch();
+
+        List<Barista> staff = new ArrayList<>();
+        for (int i = 1; i <= baristas; i++) {
+            staff.add(Barista.builder().name("Barista " + i).build());
+        }
+        baristaRepository.saveAll(staff);
+
+        List<Order> queued = new ArrayList<>();
+        for (int i = 0; i < queueDepth; i++) {
+            Order o = newOrder(now.minusMillis((long) (random.nextDouble() * SEED_WINDOW_MILLIS)));
+            queued.add(o);
+        }
+        orderRepository.saveAll(queued);
+    }
+
+    @Benchmark
+    public Instant tick() {
+        int arrivals = PoissonGenerator.generate(lambda * TICK.toSeconds() / 60.0);
+        for (int i = 0; i < arrivals; i++) {
+            Order o = newOrder(now);
+            simulationService.createOrderWithArrivalTime(o.getCustomerName(), o.getDrinkType(), o.getLoyaltyStatus(), now);
+        }
+        schedulerService.processTick(now);
+        now = now.plus(TICK);
+        return now;
+    }
+
+    private Order newOrder(Instant arrival) {
+        return Order.builder()
+            .customerName("Customer " + random.nextInt(10_000))
+            .drinkType(DRINKS[random.nextInt(DRINKS.length)])
+            .loyaltyStatus(random.nextDouble() < 0.2 ? LoyaltyStatus.GOLD : LoyaltyStatus.REGULAR)
+            .status(OrderStatus.QUEUED)
+            .arrivalTime(arrival)
+            .build();
+    }
+}
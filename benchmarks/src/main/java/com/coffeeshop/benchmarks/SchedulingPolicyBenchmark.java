@@ -0,0 +1,96 @@
+package com.coffeeshop.benchmarks;
+
+import com.coffeeshop.scheduling.OrderTable;
+import com.coffeeshop.scheduling.PrepTimes;
+import com.coffeeshop.scheduling.RowQueue;
+import com.coffeeshop.scheduling.SchedulingPolicy;
+import com.coffeeshop.scheduling.WeightedPrioritySchedulingPolicy;
+import com.coffeeshop.simulation.SimulatedOrders;
+import com.coffeeshop.simulation.SimulationEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring and selection against a queue of {@code queueSize} waiting orders, the work the live
+ * scheduler and both simulators do per barista per tick.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchedulingPolicyBenchmark {
+
+    private static final long MINUTE_MILLIS = 60_000;
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int queueSize;
+
+    private final SchedulingPolicy policy = WeightedPrioritySchedulingPolicy.defaults();
+    private final double[] mixedRatios = {0.0, 0.4, 0.8, 1.0, 1.0, 1.3, 1.6, 2.0};
+    private final double[] idleRatios = new double[8];
+    private OrderTable table;
+    private RowQueue queue;
+    private long now;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimulatedOrders orders = SimulationEngine.generateOrders(42, queueSize);
+        table = new OrderTable(queueSize);
+        for (int row = 0; row < orders.size(); row++) {
+            table.add(orders.id(row), (long) (orders.arrivalMinutes(row) * MINUTE_MILLIS),
+                    orders.drinkType(row).ordinal(), orders.prepMinutes(row), orders.complexityScore(row),
+                    orders.loyaltyBoost(row));
+        }
+        queue = new RowQueue(table);
+        now = (long) (orders.arrivalMinutes(orders.size() - 1) * MINUTE_MILLIS);
+        for (int row = 0; row < queueSize; row++) {
+            queue.add(row);
+            queue.reprioritize(row, policy.priority(table, row, now));
+        }
+    }
+
+    private int nextRow() {
+        int row = cursor;
+        cursor = row + 1 == queueSize ? 0 : row + 1;
+        return row;
+    }
+
+    @Benchmark
+    public double priority() {
+        return policy.priority(table, nextRow(), now);
+    }
+
+    @Benchmark
+    public int selectNext() {
+        return policy.selectNext(table, queue, 1.0, now);
+    }
+
+    @Benchmark
+    public int selectNextOverloaded() {
+        return policy.selectNext(table, queue, 1.5, now);
+    }
+
+    /** Eight free baristas that are all alike: no matching, just the top of the queue. */
+    @Benchmark
+    public int[] selectBatchIdle() {
+        return policy.selectBatch(table, queue, idleRatios, PrepTimes.nominal(table), now);
+    }
+
+    /** Eight free baristas with different workloads, matched against the top candidates. */
+    @Benchmark
+    public int[] selectBatchMixed() {
+        return policy.selectBatch(table, queue, mixedRatios, PrepTimes.nominal(table), now);
+    }
+
+    /** One breakpoint: rescore a queued order one minute later and move it in the priority order. */
+    @Benchmark
+    public boolean rescore() {
+        int row = nextRow();
+        long at = now + (row & 1) * MINUTE_MILLIS;
+        return queue.reprioritize(row, policy.priority(table, row, at));
+    }
+}
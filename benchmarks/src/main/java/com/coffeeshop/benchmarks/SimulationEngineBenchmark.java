@@ -0,0 +1,45 @@
+package com.coffeeshop.benchmarks;
+
+import com.coffeeshop.simulation.DiscreteEventSimulationEngine;
+import com.coffeeshop.simulation.SimulatedOrders;
+import com.coffeeshop.simulation.SimulationEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One Monte Carlo replication through the in-memory engines. The horizon is stretched to a
+ * multiple of the arrival window so an overloaded configuration still drains instead of being
+ * cut off at 180 minutes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimulationEngineBenchmark {
+
+    @Param({"250", "10000", "100000"})
+    public int orderCount;
+
+    @Param({"3", "8", "16", "64"})
+    public int baristas;
+
+    @Param({"1.4", "5", "20"})
+    public double lambda;
+
+    private SimulatedOrders orders;
+    private double horizonMinutes;
+
+    @Setup(Level.Invocation)
+    public void generate() {
+        orders = SimulationEngine.generateOrders(42, orderCount, lambda);
+        horizonMinutes = orders.arrivalMinutes(orders.size() - 1) * 4 + 180;
+    }
+
+    @Benchmark
+    public SimulationEngine.TestCaseResult discreteEvent() {
+        return DiscreteEventSimulationEngine.runSingleTestCase(0, orders, baristas, horizonMinutes);
+    }
+}
@@ -40,6 +40,58 @@ export default function MetricsDashboard({ metrics }) {
           <span className="value">{metrics.queueSize ?? 0}</span>
         </div>
       </div>
+      {metrics.windows?.length > 0 && (
+        <table className="metrics-windows">
+          <thead>
+            <tr>
+              <th>Last</th>
+              <th>Completed</th>
+              <th>Avg Wait</th>
+              <th>Max Wait</th>
+              <th>Timeout %</th>
+              <th>Fairness</th>
+            </tr>
+          </thead>
+          <tbody>
+            {metrics.windows.map((w) => (
+              <tr key={w.window}>
+                <td>{w.window}</td>
+                <td>{w.ordersCompleted}</td>
+                <td>{w.avgWaitTimeMinutes.toFixed(1)} min</td>
+                <td>{w.maxWaitTimeMinutes.toFixed(1)} min</td>
+                <td>{(w.timeoutRate * 100).toFixed(1)}%</td>
+                <td>{w.fairnessViolations}</td>
+              </tr>
+            ))}
+          </tbody>
+        </table>
+      )}
+      {metrics.latency?.length > 0 && (
+        <table className="metrics-windows">
+          <thead>
+            <tr>
+              <th>Latency</th>
+              <th>p50</th>
+              <th>p90</th>
+              <th>p99</th>
+              <th>p99.9</th>
+            </tr>
+          </thead>
+          <tbody>
+            {metrics.latency
+              .filter((l) => l.dimension === 'all')
+              .map((l) => (
+                <tr key={l.series}>
+                  <td>{l.series}</td>
+                  <td>{l.p50Minutes.toFixed(1)} min</td>
+                  <td>{l.p90Minutes.toFixed(1)} min</td>
+                  <td>{l.p99Minutes.toFixed(1)} min</td>
+                  <td>{l.p999Minutes.toFixed(1)} min</td>
+                </tr>
+              ))}
+          </tbody>
+        </table>
+      )}
       <p className="recorded">
         Last updated: {metrics.recordedAt
           ? new Date(metrics.recordedAt).toLocaleTimeString()
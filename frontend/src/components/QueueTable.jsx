@@ -39,7 +39,7 @@ export default function QueueTable({ queue }) {
                   {order.waitTimeMinutes} min
                 </span>
               </td>
-              <td>~{order.estimatedWaitMinutes} min</td>
+              <td>{order.estimatedWaitMinutes != null ? `~${order.estimatedWaitMinutes} min` : '-'}</td>
               <td>{order.priorityScore != null ? order.priorityScore.toFixed(1) : '-'}</td>
               <td>{order.loyaltyStatus}</td>
               <td className="reason">
@@ -1,4 +1,4 @@
-import React, { useState, useEffect, useCallback } from 'react';
+import React, { useState, useEffect, useCallback, useMemo, useRef } from 'react';
 import QueueTable from '../components/QueueTable';
 import BaristaPanel from '../components/BaristaPanel';
 import MetricsDashboard from '../components/MetricsDashboard';
@@ -6,67 +6,138 @@ import AllOrdersPanel from '../components/AllOrdersPanel';
 import OrderAnalytics from '../components/OrderAnalytics';
 import * as api from '../services/api';
 
-const POLL_INTERVAL = 3000;
+function byPriority(a, b) {
+  const pa = a.priorityScore ?? -Infinity;
+  const pb = b.priorityScore ?? -Infinity;
+  if (pa !== pb) return pb - pa;
+  return new Date(a.arrivalTime) - new Date(b.arrivalTime) || a.id - b.id;
+}
+
+// order updates do not carry an ETA; the order keeps its last one until the next tick brings a new one
+function withEta(order, previous) {
+  return { ...order, estimatedWaitMinutes: order.estimatedWaitMinutes ?? previous?.estimatedWaitMinutes };
+}
+
+function withoutOrders(barista) {
+  const copy = { ...barista };
+  delete copy.currentOrders;
+  return copy;
+}
 
 
 export default function Dashboard() {
-  const [queue, setQueue] = useState([]);
-  const [baristas, setBaristas] = useState([]);
+  const [ordersById, setOrdersById] = useState({});
+  const [baristasById, setBaristasById] = useState({});
   const [metrics, setMetrics] = useState(null);
+  const [serverNow, setServerNow] = useState(null);
   const [running, setRunning] = useState(false);
   const [error, setError] = useState(null);
   const [manualOrder, setManualOrder] = useState({ customerName: '', drinkType: 'LATTE', loyaltyStatus: 'REGULAR' });
   const [showAllOrders, setShowAllOrders] = useState(false);
   const [testResult, setTestResult] = useState(null);
   const [testRunning, setTestRunning] = useState(false);
-  const [orders, setOrders] = useState([]);
+  const [historyById, setHistoryById] = useState({});
   const [ordersError, setOrdersError] = useState(null);
-
-  const fetchAll = useCallback(async () => {
-    try {
-      const [q, b, m, s] = await Promise.all([
-        api.getQueue(),
-        api.getBaristas(),
-        api.getMetrics(),
-        api.getSimulationStatus(),
-      ]);
-      setQueue(q);
-      setBaristas(b);
-      setMetrics(m);
-      setRunning(s.running);
-      setError(null);
-    } catch (e) {
-      setError(e.message || 'Failed to fetch');
-    }
-  }, []);
-
-  useEffect(() => {
-    fetchAll();
-    const id = setInterval(fetchAll, POLL_INTERVAL);
-    return () => clearInterval(id);
-  }, [fetchAll]);
+  // order updates that arrive while the history is loading, applied on top of it
+  const updatesDuringFetch = useRef(null);
 
   const fetchOrders = useCallback(async () => {
+    const updates = {};
+    updatesDuringFetch.current = updates;
     try {
       const data = await api.getAllOrders();
-      setOrders(data);
+      setHistoryById({ ...Object.fromEntries(data.map((o) => [o.id, o])), ...updates });
       setOrdersError(null);
     } catch (e) {
       setOrdersError(e.message || 'Failed to fetch orders');
+    } finally {
+      if (updatesDuringFetch.current === updates) updatesDuringFetch.current = null;
     }
   }, []);
 
+  const recordOrder = useCallback((order) => {
+    if (updatesDuringFetch.current) updatesDuringFetch.current[order.id] = order;
+    setHistoryById((prev) => ({ ...prev, [order.id]: order }));
+  }, []);
+
+  const orders = useMemo(() => Object.values(historyById), [historyById]);
+
+  const mergeBaristas = useCallback((list) => {
+    setBaristasById((prev) => {
+      const next = { ...prev };
+      list.forEach((b) => { next[b.id] = { ...next[b.id], ...withoutOrders(b) }; });
+      return next;
+    });
+  }, []);
+
   useEffect(() => {
-    fetchOrders();
-    const id = setInterval(fetchOrders, POLL_INTERVAL);
-    return () => clearInterval(id);
-  }, [fetchOrders]);
+    api.getSimulationStatus().then((s) => setRunning(s.running)).catch(() => {});
+    // the full history is loaded once per (re)connect; after that it is kept up to date by the order events
+    return api.subscribeToQueueEvents({
+      onSnapshot: (snap) => {
+        fetchOrders();
+        const byId = {};
+        snap.queue.forEach((o) => { byId[o.id] = o; });
+        snap.baristas.forEach((b) => b.currentOrders?.forEach((o) => { byId[o.id] = o; }));
+        setOrdersById(byId);
+        setBaristasById(Object.fromEntries(snap.baristas.map((b) => [b.id, withoutOrders(b)])));
+        setMetrics(snap.metrics);
+        setServerNow(snap.now);
+        setError(null);
+      },
+      onOrder: (order) => {
+        recordOrder(order);
+        setOrdersById((prev) => {
+          const next = { ...prev };
+          if (order.status === 'COMPLETED') delete next[order.id];
+          else next[order.id] = withEta(order, prev[order.id]);
+          return next;
+        });
+      },
+      onBarista: (b) => mergeBaristas([b]),
+      onMetrics: setMetrics,
+      onTick: ({ now, etas }) => {
+        setServerNow(now);
+        setOrdersById((prev) => {
+          const next = { ...prev };
+          Object.entries(etas ?? {}).forEach(([id, minutes]) => {
+            if (next[id]) next[id] = { ...next[id], estimatedWaitMinutes: minutes };
+          });
+          return next;
+        });
+      },
+      onError: () => setError('Live updates disconnected, reconnecting...'),
+    });
+  }, [fetchOrders, recordOrder, mergeBaristas]);
+
+  const queue = useMemo(() => {
+    const now = serverNow ? new Date(serverNow).getTime() : Date.now();
+    return Object.values(ordersById)
+      .filter((o) => o.status === 'QUEUED')
+      .sort(byPriority)
+      .map((o) => ({
+        ...o,
+        waitTimeMinutes: Math.max(o.waitTimeMinutes, Math.floor((now - new Date(o.arrivalTime).getTime()) / 60000)),
+      }));
+  }, [ordersById, serverNow]);
+
+  const baristas = useMemo(() => {
+    const preparing = Object.values(ordersById).filter((o) => o.status === 'PREPARING');
+    return Object.values(baristasById)
+      .sort((a, b) => a.id - b.id)
+      .map((b) => ({
+        ...b,
+        currentOrders: preparing
+          .filter((o) => o.baristaId === b.id)
+          .map((o) => ({ ...o, baristaName: b.name })),
+      }));
+  }, [ordersById, baristasById]);
 
   const handleStart = async () => {
     try {
       await api.startSimulation();
       setRunning(true);
-      fetchAll();
+      mergeBaristas(await api.getBaristas());
     } catch (e) {
       setError(e.message);
     }
@@ -76,7 +147,6 @@ export default function Dashboard() {
     try {
       await api.stopSimulation();
       setRunning(false);
-      fetchAll();
     } catch (e) {
       setError(e.message);
     }
@@ -89,6 +159,7 @@ export default function Dashboard() {
       const result = await api.startTestSimulation();
       setTestResult(result);
       setError(null);
+      fetchOrders();
     } catch (e) {
       setError(e.message || 'Test simulation failed');
     } finally {
@@ -101,7 +172,6 @@ export default function Dashboard() {
     try {
       await api.createOrder(manualOrder);
       setManualOrder({ customerName: '', drinkType: 'LATTE', loyaltyStatus: 'REGULAR' });
-      fetchAll();
     } catch (e) {
       setError(e.message);
     }
@@ -43,10 +43,25 @@ export async function getSimulationStatus() {
   return res.json();
 }
 
-export async function getAllOrders() {
-  const res = await fetch(`${BASE}/orders/all`);
-  if (!res.ok) throw new Error('Failed to fetch all orders');
-  return res.json();
+const ORDERS_PAGE_SIZE = 1000;
+
+// Pages through /orders/all oldest first, resuming each page after the last order of the previous one.
+export async function getAllOrders({ status, from, to } = {}) {
+  const orders = [];
+  let cursor = {};
+  for (;;) {
+    const params = new URLSearchParams({ limit: ORDERS_PAGE_SIZE, ...cursor });
+    [].concat(status ?? []).forEach((s) => params.append('status', s));
+    if (from) params.set('from', from);
+    if (to) params.set('to', to);
+    const res = await fetch(`${BASE}/orders/all?${params}`);
+    if (!res.ok) throw new Error('Failed to fetch all orders');
+    const page = await res.json();
+    orders.push(...page);
+    if (page.length < ORDERS_PAGE_SIZE) return orders;
+    const last = page[page.length - 1];
+    cursor = { after: last.arrivalTime, afterId: last.id };
+  }
 }
 
 export async function createOrder({ customerName, drinkType, loyaltyStatus }) {
@@ -58,3 +73,20 @@ export async function createOrder({ customerName, drinkType, loyaltyStatus }) {
   if (!res.ok) throw new Error('Failed to create order');
   return res.json();
 }
+
+// Live queue updates: one `snapshot` on connect, then `order`, `barista`, `metrics` and `tick` deltas.
+// Each `tick` carries the server's ETA for every queued order of the store, keyed by order id.
+// EventSource reconnects on its own and the server sends a fresh snapshot each time.
+export function subscribeToQueueEvents({ onSnapshot, onOrder, onBarista, onMetrics, onTick, onError }) {
+  const source = new EventSource(`${BASE}/events`);
+  const listen = (name, handler) => {
+    if (handler) source.addEventListener(name, (e) => handler(JSON.parse(e.data)));
+  };
+  listen('snapshot', onSnapshot);
+  listen('order', onOrder);
+  listen('barista', onBarista);
+  listen('metrics', onMetrics);
+  listen('tick', onTick);
+  if (onError) source.onerror = onError;
+  return () => source.close();
+}